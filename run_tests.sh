@@ -21,6 +21,8 @@ echo "Compiling functional tests..."
 javac -d ./bin -cp .:junit-platform-console-standalone.jar --source-path ./src ./src/tests/*/functional/MazeTest.java
 javac -d ./bin -cp .:junit-platform-console-standalone.jar --source-path ./src ./src/tests/*/functional/RouteFinderTest.java
 javac -d ./bin -cp .:junit-platform-console-standalone.jar --source-path ./src ./src/tests/*/functional/TileTest.java
+javac -d ./bin -cp .:junit-platform-console-standalone.jar --source-path ./src ./src/tests/*/functional/SolverTest.java
+javac -d ./bin -cp .:junit-platform-console-standalone.jar --source-path ./src ./src/tests/*/functional/MazeStorageTest.java
 
 # These functional tests will allow either a static or non-static Coordinate class
 echo "isStatic is $isStatic"
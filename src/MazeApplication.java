@@ -148,10 +148,10 @@ public class MazeApplication extends Application {
             } else if (tilesList.get(i).get(j).getType() == Tile.Type.EXIT) {
               CorridorTile entrance = new CorridorTile("X");
               grid.add(entrance.getCorridor(), j, i);
-            } else if (tilesList.get(i).get(j).alreadyVisited() == true && tilesList.get(i).get(j).isDeadEnd() == false) {
+            } else if (routeFinder.isVisited(tilesList.get(i).get(j)) == true && routeFinder.isDeadEnd(tilesList.get(i).get(j)) == false) {
               CorridorTile entrance = new CorridorTile("*");
               grid.add(entrance.getCorridor(), j, i);
-            } else if (tilesList.get(i).get(j).isDeadEnd() == true) {
+            } else if (routeFinder.isDeadEnd(tilesList.get(i).get(j)) == true) {
               CorridorTile entrance = new CorridorTile("-");
               grid.add(entrance.getCorridor(), j, i);
             } else {
@@ -179,14 +179,14 @@ public class MazeApplication extends Application {
         for (int i=0; i<maze.getTiles().size(); i++) {
           for (int j=0; j<maze.getTiles().get(i).size(); j++) {
             Tile tile = maze.getTiles().get(i).get(j);
-            if (tile.isDeadEnd() == true) {
+            if (routeFinder.isDeadEnd(tile) == true) {
               visitedTile = new CorridorTile("-");
               grid.add(visitedTile.getCorridor(), j, i);
             }
           }
         }
 
-        if (routeFinder.getTopOfStack().isDeadEnd() == false && routeFinder.getTopOfStack().getType() == Tile.Type.CORRIDOR) {
+        if (routeFinder.isDeadEnd(routeFinder.getTopOfStack()) == false && routeFinder.getTopOfStack().getType() == Tile.Type.CORRIDOR) {
           visitedTile = new CorridorTile("*");
           grid.add(visitedTile.getCorridor(), x, y);
         }
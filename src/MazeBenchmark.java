@@ -0,0 +1,694 @@
+import maze.DeadEndFiller;
+import maze.Maze;
+import maze.MazeBundle;
+import maze.routing.AStarRouteFinder;
+import maze.routing.BidirectionalRouteFinder;
+import maze.routing.BreadthFirstRouteFinder;
+import maze.routing.DistanceField;
+import maze.routing.HierarchicalGraph;
+import maze.routing.IncrementalPlanner;
+import maze.routing.JumpPointRouteFinder;
+import maze.routing.JunctionGraph;
+import maze.routing.NoRouteFoundException;
+import maze.routing.ParallelBreadthFirstRouteFinder;
+import maze.routing.RouteFinder;
+import maze.routing.SolveResult;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**  Rough timing harness for the maze loader and solvers. Run with the name of a
+*    benchmark, e.g. java MazeBenchmark step
+*    @author Ashreen Kaur
+*/
+public class MazeBenchmark {
+
+  private static final long SEED = 16412;
+
+  /**  Runs the benchmark named on the command line
+  *    @param args: name of the benchmark to run
+  */
+  public static void main(String[] args) throws IOException {
+    String name = "step";
+    if (args.length > 0) {
+      name = args[0];
+    }
+
+    if (name.equals("step")) {
+      benchmarkStep();
+    } else if (name.equals("solve")) {
+      benchmarkSolve();
+    } else if (name.equals("bfs")) {
+      benchmarkBreadthFirst();
+    } else if (name.equals("parallel-bfs")) {
+      benchmarkParallelBreadthFirst();
+    } else if (name.equals("astar")) {
+      benchmarkAStar();
+    } else if (name.equals("jps")) {
+      benchmarkJumpPoint();
+    } else if (name.equals("bidirectional")) {
+      benchmarkBidirectional();
+    } else if (name.equals("dead-end")) {
+      benchmarkDeadEndFilling();
+    } else if (name.equals("junction")) {
+      benchmarkJunctionGraph();
+    } else if (name.equals("hierarchical")) {
+      benchmarkHierarchical();
+    } else if (name.equals("field")) {
+      benchmarkDistanceField();
+    } else if (name.equals("solvable")) {
+      benchmarkSolvable();
+    } else if (name.equals("replan")) {
+      benchmarkReplan();
+    } else if (name.equals("parse")) {
+      benchmarkParse();
+    } else if (name.equals("parallel-parse")) {
+      benchmarkParallelParse();
+    } else if (name.equals("binary")) {
+      benchmarkBinary();
+    } else if (name.equals("bundle")) {
+      benchmarkBundle();
+    } else {
+      System.out.println("Unknown benchmark " + name);
+    }
+  }
+
+  /**  Times RouteFinder.step() on growing mazes. The cost of a step should stay
+  *    roughly the same however large the maze is
+  */
+  private static void benchmarkStep() throws IOException {
+    int steps = 20000;
+    System.out.println("size       ns/step");
+
+    for (int size = 101; size <= 1601; size = size * 2 - 1) {
+      String mazeFile = generate(size, size, 0.0, SEED).getPath();
+
+      // one run to warm up, one to measure
+      runSteps(new RouteFinder(Maze.fromTxt(mazeFile)), steps);
+      Maze maze = Maze.fromTxt(mazeFile);
+      RouteFinder routeFinder = new RouteFinder(maze);
+      long start = System.nanoTime();
+      int taken = runSteps(routeFinder, steps);
+      long elapsed = System.nanoTime() - start;
+
+      System.out.println(String.format("%-10d %.1f", size, (double) elapsed / taken));
+    }
+  }
+
+  /**  Compares solving a large maze by calling step() in a loop with RouteFinder.solve()  */
+  private static void benchmarkSolve() throws IOException {
+    Maze maze = Maze.fromTxt(generate(2001, 2001, 0.0, SEED).getPath());
+    int runs = 5;
+
+    long stepped = Long.MAX_VALUE;
+    long solved = Long.MAX_VALUE;
+    SolveResult result = null;
+    for (int i=0; i<runs + 2; i++) {
+      RouteFinder routeFinder = new RouteFinder(maze);
+      long start = System.nanoTime();
+      while (routeFinder.step() == false) {
+        continue;
+      }
+      routeFinder.getRoute();
+      stepped = Math.min(stepped, System.nanoTime() - start);
+
+      routeFinder = new RouteFinder(maze);
+      start = System.nanoTime();
+      result = routeFinder.solve();
+      result.getRoute();
+      solved = Math.min(solved, System.nanoTime() - start);
+    }
+    System.out.println(String.format("step loop  %.1f ms", stepped / 1e6));
+    System.out.println(String.format("solve      %.1f ms  %s", solved / 1e6, result));
+  }
+
+  /**  Compares the routes found by RouteFinder and BreadthFirstRouteFinder on an open maze  */
+  private static void benchmarkBreadthFirst() throws IOException {
+    Maze maze = Maze.fromTxt(generate(2001, 2001, 0.1, SEED).getPath());
+    int runs = 5;
+
+    long depthFirst = Long.MAX_VALUE;
+    long breadthFirst = Long.MAX_VALUE;
+    SolveResult depthResult = null;
+    SolveResult breadthResult = null;
+    for (int i=0; i<runs + 2; i++) {
+      long start = System.nanoTime();
+      depthResult = new RouteFinder(maze).solve();
+      depthFirst = Math.min(depthFirst, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      breadthResult = new BreadthFirstRouteFinder(maze).solve();
+      breadthFirst = Math.min(breadthFirst, System.nanoTime() - start);
+    }
+    System.out.println(String.format("RouteFinder              %.1f ms  route %d", depthFirst / 1e6, depthResult.getRouteLength()));
+    System.out.println(String.format("BreadthFirstRouteFinder  %.1f ms  route %d", breadthFirst / 1e6, breadthResult.getRouteLength()));
+  }
+
+  /**  Times ParallelBreadthFirstRouteFinder on pools of 1 thread up to one per core,
+  *    against BreadthFirstRouteFinder. The maze is open so the layers are wide enough
+  *    to split; in a maze without loops each layer is only a few cells
+  */
+  private static void benchmarkParallelBreadthFirst() throws IOException {
+    Maze maze = Maze.fromTxt(generate(4001, 4001, 0.6, SEED).getPath());
+    int runs = 3;
+
+    long sequential = Long.MAX_VALUE;
+    SolveResult expected = null;
+    for (int i=0; i<runs; i++) {
+      long start = System.nanoTime();
+      expected = new BreadthFirstRouteFinder(maze).solve();
+      sequential = Math.min(sequential, System.nanoTime() - start);
+    }
+    System.out.println(String.format("BreadthFirstRouteFinder  %.1f ms  route %d", sequential / 1e6,
+        expected.getRouteLength()));
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    for (int threads=1; threads<=cores; threads=threads*2) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      long parallel = Long.MAX_VALUE;
+      SolveResult result = null;
+      for (int i=0; i<runs; i++) {
+        long start = System.nanoTime();
+        result = new ParallelBreadthFirstRouteFinder(maze, pool).solve();
+        parallel = Math.min(parallel, System.nanoTime() - start);
+      }
+      pool.shutdown();
+      System.out.println(String.format("%2d threads               %.1f ms  route %d  %.2fx", threads,
+          parallel / 1e6, result.getRouteLength(), (double) sequential / parallel));
+    }
+  }
+
+  /**  Compares the cells expanded by BreadthFirstRouteFinder and AStarRouteFinder as
+  *    mazes get more open
+  */
+  private static void benchmarkAStar() throws IOException {
+    System.out.println("openness   bfs expanded   bfs ms   a* expanded   a* ms");
+
+    for (double openness : new double[]{0.0, 0.1, 0.3, 0.6}) {
+      Maze maze = Maze.fromTxt(generate(2001, 2001, openness, SEED).getPath());
+      int runs = 3;
+
+      long breadthFirst = Long.MAX_VALUE;
+      long aStar = Long.MAX_VALUE;
+      SolveResult breadthResult = null;
+      SolveResult aStarResult = null;
+      for (int i=0; i<runs + 1; i++) {
+        long start = System.nanoTime();
+        breadthResult = new BreadthFirstRouteFinder(maze).solve();
+        breadthFirst = Math.min(breadthFirst, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        aStarResult = new AStarRouteFinder(maze).solve();
+        aStar = Math.min(aStar, System.nanoTime() - start);
+      }
+      System.out.println(String.format("%-10.1f %-14d %-8.1f %-13d %.1f", openness,
+          breadthResult.getSteps(), breadthFirst / 1e6, aStarResult.getSteps(), aStar / 1e6));
+    }
+  }
+
+  /**  Compares AStarRouteFinder with JumpPointRouteFinder on mazes that open up into
+  *    large rooms
+  */
+  private static void benchmarkJumpPoint() throws IOException {
+    System.out.println("openness   a* ms    a* opened   jps ms   jps opened");
+
+    for (double openness : new double[]{0.3, 0.6, 0.9}) {
+      Maze maze = Maze.fromTxt(generate(2001, 2001, openness, SEED).getPath());
+      int runs = 3;
+
+      long aStar = Long.MAX_VALUE;
+      long jumpPoint = Long.MAX_VALUE;
+      SolveResult aStarResult = null;
+      SolveResult jumpPointResult = null;
+      for (int i=0; i<runs + 1; i++) {
+        long start = System.nanoTime();
+        aStarResult = new AStarRouteFinder(maze).solve();
+        aStar = Math.min(aStar, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        jumpPointResult = new JumpPointRouteFinder(maze).solve();
+        jumpPoint = Math.min(jumpPoint, System.nanoTime() - start);
+      }
+      System.out.println(String.format("%-10.1f %-8.1f %-11d %-8.1f %d", openness, aStar / 1e6,
+          aStarResult.getVisited(), jumpPoint / 1e6, jumpPointResult.getVisited()));
+    }
+  }
+
+  /**  Compares BreadthFirstRouteFinder with BidirectionalRouteFinder, on one thread and
+  *    on two, on a long open maze
+  */
+  private static void benchmarkBidirectional() throws IOException {
+    Maze maze = Maze.fromTxt(generate(3001, 3001, 0.3, SEED).getPath());
+    int runs = 5;
+
+    long breadthFirst = Long.MAX_VALUE;
+    long oneThread = Long.MAX_VALUE;
+    long twoThreads = Long.MAX_VALUE;
+    SolveResult breadthResult = null;
+    SolveResult bidirectionalResult = null;
+    for (int i=0; i<runs + 2; i++) {
+      long start = System.nanoTime();
+      breadthResult = new BreadthFirstRouteFinder(maze).solve();
+      breadthFirst = Math.min(breadthFirst, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      bidirectionalResult = new BidirectionalRouteFinder(maze).solve();
+      oneThread = Math.min(oneThread, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      new BidirectionalRouteFinder(maze, true).solve();
+      twoThreads = Math.min(twoThreads, System.nanoTime() - start);
+    }
+    System.out.println(String.format("breadth first        %.1f ms  %d cells", breadthFirst / 1e6, breadthResult.getSteps()));
+    System.out.println(String.format("bidirectional        %.1f ms  %d cells", oneThread / 1e6, bidirectionalResult.getSteps()));
+    System.out.println(String.format("bidirectional x2     %.1f ms", twoThreads / 1e6));
+  }
+
+  /**  Compares RouteFinder on a large maze without loops with filling the dead ends
+  *    first and then running RouteFinder on what is left
+  */
+  private static void benchmarkDeadEndFilling() throws IOException {
+    Maze maze = Maze.fromTxt(generate(2001, 2001, 0.0, SEED).getPath());
+    int runs = 5;
+
+    long plain = Long.MAX_VALUE;
+    long filledFirst = Long.MAX_VALUE;
+    SolveResult plainResult = null;
+    SolveResult filledResult = null;
+    for (int i=0; i<runs + 2; i++) {
+      long start = System.nanoTime();
+      plainResult = new RouteFinder(maze).solve();
+      plain = Math.min(plain, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      filledResult = new RouteFinder(DeadEndFiller.prune(maze)).solve();
+      filledFirst = Math.min(filledFirst, System.nanoTime() - start);
+    }
+    System.out.println(String.format("RouteFinder               %.1f ms  %d steps", plain / 1e6, plainResult.getSteps()));
+    System.out.println(String.format("DeadEndFiller+RouteFinder %.1f ms  %d steps", filledFirst / 1e6, filledResult.getSteps()));
+  }
+
+  /**  Compares answering repeated queries on one maze with AStarRouteFinder against
+  *    building a JunctionGraph once and querying it
+  */
+  private static void benchmarkJunctionGraph() throws IOException {
+    Maze maze = Maze.fromTxt(generate(2001, 2001, 0.02, SEED).getPath());
+    int queries = 20;
+
+    long start = System.nanoTime();
+    for (int i=0; i<queries; i++) {
+      new AStarRouteFinder(maze).solve();
+    }
+    long aStar = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    JunctionGraph graph = new JunctionGraph(maze);
+    long build = System.nanoTime() - start;
+    start = System.nanoTime();
+    SolveResult result = null;
+    for (int i=0; i<queries; i++) {
+      result = graph.solve();
+    }
+    long query = System.nanoTime() - start;
+    start = System.nanoTime();
+    result.getRouteIndices();
+    long expand = System.nanoTime() - start;
+
+    System.out.println(String.format("cells %d, junctions %d, route %d", maze.getWidth() * maze.getHeight(),
+        graph.getJunctionCount(), result.getRouteLength()));
+    System.out.println(String.format("AStarRouteFinder  %.1f ms per query", aStar / 1e6 / queries));
+    System.out.println(String.format("JunctionGraph     %.1f ms to build, %.1f ms per query, %.1f ms to expand a route",
+        build / 1e6, query / 1e6 / queries, expand / 1e6));
+  }
+
+  /**  Compares AStarRouteFinder with building, saving, loading and querying a
+  *    HierarchicalGraph on a large maze, with and without loops
+  */
+  private static void benchmarkHierarchical() throws IOException {
+    System.out.println("openness   a* ms   a* length   build ms   load ms   query ms   expand ms   length   nodes");
+
+    for (double openness : new double[]{0.0, 0.1}) {
+      Maze maze = Maze.fromTxt(generate(4001, 4001, openness, SEED).getPath());
+
+      long start = System.nanoTime();
+      SolveResult aStarResult = new AStarRouteFinder(maze).solve();
+      long aStar = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      HierarchicalGraph graph = new HierarchicalGraph(maze);
+      long build = System.nanoTime() - start;
+
+      File graphFile = File.createTempFile("maze-benchmark", ".graph");
+      graphFile.deleteOnExit();
+      graph.save(graphFile.getPath());
+      start = System.nanoTime();
+      graph = HierarchicalGraph.load(graphFile.getPath(), maze);
+      long load = System.nanoTime() - start;
+
+      int queries = 20;
+      SolveResult result = null;
+      start = System.nanoTime();
+      for (int i=0; i<queries; i++) {
+        result = graph.solve();
+      }
+      long query = System.nanoTime() - start;
+      start = System.nanoTime();
+      result.getRouteIndices();
+      long expand = System.nanoTime() - start;
+
+      System.out.println(String.format("%-10.1f %-7.1f %-11d %-10.1f %-9.1f %-10.2f %-11.2f %-8d %d", openness,
+          aStar / 1e6, aStarResult.getRouteLength(), build / 1e6, load / 1e6, query / 1e6 / queries,
+          expand / 1e6, result.getRouteLength(), graph.getNodeCount()));
+    }
+  }
+
+  /**  Times building, saving and mapping a DistanceField, then routes from many random
+  *    cells to the exit, against one AStarRouteFinder query from the entrance
+  */
+  private static void benchmarkDistanceField() throws IOException {
+    Maze maze = Maze.fromTxt(generate(4001, 4001, 0.1, SEED).getPath());
+
+    long start = System.nanoTime();
+    SolveResult aStarResult = new AStarRouteFinder(maze).solve();
+    long aStar = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    DistanceField field = new DistanceField(maze);
+    long build = System.nanoTime() - start;
+
+    File fieldFile = File.createTempFile("maze-benchmark", ".field");
+    fieldFile.deleteOnExit();
+    start = System.nanoTime();
+    field.save(fieldFile.getPath());
+    long save = System.nanoTime() - start;
+    start = System.nanoTime();
+    DistanceField mapped = DistanceField.load(fieldFile.getPath(), maze);
+    long load = System.nanoTime() - start;
+
+    Random random = new Random(SEED);
+    int queries = 1000;
+    int[] starts = new int[queries];
+    for (int i=0; i<queries; i++) {
+      do {
+        starts[i] = random.nextInt(maze.getWidth() * maze.getHeight());
+      } while (field.isReachable(starts[i]) == false);
+    }
+    long heapSteps = 0;
+    start = System.nanoTime();
+    for (int from : starts) {
+      heapSteps = heapSteps + field.routeFrom(from).getSteps();
+    }
+    long heap = System.nanoTime() - start;
+    start = System.nanoTime();
+    for (int from : starts) {
+      mapped.routeFrom(from);
+    }
+    long map = System.nanoTime() - start;
+
+    System.out.println(String.format("AStarRouteFinder      %.1f ms from the entrance, route %d", aStar / 1e6,
+        aStarResult.getRouteLength()));
+    System.out.println(String.format("DistanceField         %.1f ms to build, %.1f ms to save, %.1f ms to map",
+        build / 1e6, save / 1e6, load / 1e6));
+    System.out.println(String.format("on the heap           %.1f us per route from a random cell, %.0f steps on average",
+        heap / 1e3 / queries, (double) heapSteps / queries));
+    System.out.println(String.format("mapped                %.1f us per route from a random cell", map / 1e3 / queries));
+  }
+
+  /**  Compares RouteFinder searching a maze with its exit walled off until it gives
+  *    up, against Maze.isSolvable
+  */
+  private static void benchmarkSolvable() throws IOException {
+    int size = 2001;
+    byte[] text = Files.readAllBytes(generate(size, size, 0.1, SEED).toPath());
+    // wall off the only cell next to the exit
+    text[(size - 2) * (size + 1) + size - 2] = '#';
+    Maze maze = Maze.fromTxt(ByteBuffer.wrap(text));
+
+    long start = System.nanoTime();
+    long steps = 0;
+    RouteFinder routeFinder = new RouteFinder(maze);
+    try {
+      routeFinder.solve();
+    } catch (NoRouteFoundException e) {
+      steps = routeFinder.stepN(0).getSteps();
+    }
+    long search = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    boolean solvable = maze.isSolvable();
+    long check = System.nanoTime() - start;
+
+    System.out.println(String.format("RouteFinder      %.1f ms  %d steps before giving up", search / 1e6, steps));
+    System.out.println(String.format("Maze.isSolvable  %.1f ms  %b", check / 1e6, solvable));
+  }
+
+  /**  Times IncrementalPlanner re-planning after single cells are toggled, against
+  *    AStarRouteFinder starting again. Closing a cell on the route forces a detour, and
+  *    opening it again brings the old route back; cells toggled at random mostly lie
+  *    far from the route
+  */
+  private static void benchmarkReplan() throws IOException {
+    Maze maze = Maze.fromTxt(generate(4001, 4001, 0.1, SEED).getPath());
+
+    long start = System.nanoTime();
+    new AStarRouteFinder(maze).solve();
+    long aStar = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    IncrementalPlanner planner = new IncrementalPlanner(maze);
+    SolveResult result = planner.solve();
+    long first = System.nanoTime() - start;
+
+    Random random = new Random(SEED);
+    int edits = 200;
+    long onRoute = 0;
+    long onRouteSteps = 0;
+    int cutOff = 0;
+    for (int i=0; i<edits; i++) {
+      int[] route = result.getRouteIndices();
+      int index = route[1 + random.nextInt(route.length - 2)];
+      start = System.nanoTime();
+      maze.setNavigable(index, false);
+      planner.cellChanged(index);
+      try {
+        onRouteSteps = onRouteSteps + planner.solve().getSteps();
+      } catch (NoRouteFoundException e) {
+        cutOff = cutOff + 1;
+      }
+      maze.setNavigable(index, true);
+      planner.cellChanged(index);
+      result = planner.solve();
+      onRoute = onRoute + System.nanoTime() - start;
+      onRouteSteps = onRouteSteps + result.getSteps();
+    }
+
+    long anywhere = 0;
+    long anywhereSteps = 0;
+    for (int i=0; i<edits; i++) {
+      int index;
+      do {
+        index = random.nextInt(maze.getWidth() * maze.getHeight());
+      } while (index == maze.getEntranceIndex() || index == maze.getExitIndex());
+      start = System.nanoTime();
+      maze.setNavigable(index, maze.isNavigable(index) == false);
+      planner.cellChanged(index);
+      anywhereSteps = anywhereSteps + planner.solve().getSteps();
+      anywhere = anywhere + System.nanoTime() - start;
+    }
+
+    start = System.nanoTime();
+    SolveResult again = new AStarRouteFinder(maze).solve();
+    long restart = System.nanoTime() - start;
+
+    System.out.println(String.format("AStarRouteFinder      %.1f ms, %.1f ms again after the edits", aStar / 1e6,
+        restart / 1e6));
+    System.out.println(String.format("IncrementalPlanner    %.1f ms for the first solve", first / 1e6));
+    System.out.println(String.format("route cell toggled    %.2f ms per re-plan, %.0f cells expanded, %d cut the exit off",
+        onRoute / 1e6 / (2 * edits), (double) onRouteSteps / (2 * edits), cutOff));
+    System.out.println(String.format("random cell toggled   %.3f ms per re-plan, %.0f cells expanded",
+        anywhere / 1e6 / edits, (double) anywhereSteps / edits));
+    System.out.println(String.format("routes agree          %b", again.getRouteLength() == planner.solve().getRouteLength()));
+  }
+
+  /**  Times Maze.fromTxt on a large generated maze file  */
+  private static void benchmarkParse() throws IOException {
+    File mazeFile = generate(4001, 4001, 0.1, SEED);
+    int runs = 5;
+
+    long best = Long.MAX_VALUE;
+    for (int i=0; i<runs + 2; i++) {
+      long start = System.nanoTime();
+      Maze.fromTxt(mazeFile.getPath());
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.println(String.format("fromTxt    %.1f ms  %.1f MB/s", best / 1e6, mazeFile.length() / (best / 1e3)));
+  }
+
+  /**  Compares Maze.fromTxt with Maze.fromTxtParallel on a large generated maze file  */
+  private static void benchmarkParallelParse() throws IOException {
+    File mazeFile = generate(8001, 8001, 0.1, SEED);
+    int runs = 5;
+
+    long sequential = Long.MAX_VALUE;
+    long parallel = Long.MAX_VALUE;
+    for (int i=0; i<runs + 2; i++) {
+      long start = System.nanoTime();
+      Maze.fromTxt(mazeFile.getPath());
+      sequential = Math.min(sequential, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      Maze.fromTxtParallel(mazeFile.getPath());
+      parallel = Math.min(parallel, System.nanoTime() - start);
+    }
+    System.out.println(String.format("fromTxt          %.1f ms", sequential / 1e6));
+    System.out.println(String.format("fromTxtParallel  %.1f ms  (%d cores)", parallel / 1e6,
+        Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**  Compares loading a large maze from text with loading it from a binary maze file  */
+  private static void benchmarkBinary() throws IOException {
+    File mazeFile = generate(4001, 4001, 0.1, SEED);
+    File binaryFile = File.createTempFile("maze", ".mzb");
+    binaryFile.deleteOnExit();
+    Maze.fromTxt(mazeFile.getPath()).toBinary(binaryFile.getPath());
+    int runs = 5;
+
+    long text = Long.MAX_VALUE;
+    long binary = Long.MAX_VALUE;
+    for (int i=0; i<runs + 2; i++) {
+      long start = System.nanoTime();
+      Maze.fromTxt(mazeFile.getPath());
+      text = Math.min(text, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      Maze.fromBinary(binaryFile.getPath());
+      binary = Math.min(binary, System.nanoTime() - start);
+    }
+    System.out.println(String.format("fromTxt     %.1f ms  %d bytes", text / 1e6, mazeFile.length()));
+    System.out.println(String.format("fromBinary  %.1f ms  %d bytes", binary / 1e6, binaryFile.length()));
+  }
+
+  /**  Compares opening many small mazes from their own text files with opening them
+  *    from a single bundle file
+  */
+  private static void benchmarkBundle() throws IOException {
+    int count = 5000;
+    String[] mazeFiles = new String[count];
+    File bundleFile = File.createTempFile("mazes", ".bundle");
+    bundleFile.deleteOnExit();
+    try (MazeBundle.Writer writer = new MazeBundle.Writer(bundleFile.getPath())) {
+      for (int i=0; i<count; i++) {
+        mazeFiles[i] = generate(21, 21, 0.1, SEED + i).getPath();
+        writer.add(Maze.fromTxt(mazeFiles[i]));
+      }
+    }
+    int runs = 3;
+
+    long text = Long.MAX_VALUE;
+    long bundled = Long.MAX_VALUE;
+    for (int i=0; i<runs + 2; i++) {
+      long start = System.nanoTime();
+      for (String mazeFile : mazeFiles) {
+        Maze.fromTxt(mazeFile);
+      }
+      text = Math.min(text, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      try (MazeBundle bundle = MazeBundle.open(bundleFile.getPath())) {
+        for (int n=0; n<bundle.size(); n++) {
+          bundle.get(n);
+        }
+      }
+      bundled = Math.min(bundled, System.nanoTime() - start);
+    }
+    System.out.println(String.format("fromTxt     %.1f us/maze", text / 1e3 / count));
+    System.out.println(String.format("MazeBundle  %.1f us/maze", bundled / 1e3 / count));
+  }
+
+  private static int runSteps(RouteFinder routeFinder, int steps) {
+    int taken = 0;
+    while (taken < steps) {
+      taken = taken + 1;
+      if (routeFinder.step()) {
+        break;
+      }
+    }
+    return taken;
+  }
+
+  /**  Writes a random maze to a temporary file. The maze is carved as a perfect maze
+  *    and then a share of the remaining inner walls is knocked down to open it up
+  *    @param width: number of columns, should be odd
+  *    @param height: number of rows, should be odd
+  *    @param openness: share of inner walls to remove after carving, from 0 to 1
+  *    @param seed: seed for the random generator
+  *    @return Returns the file the maze was written to
+  */
+  static File generate(int width, int height, double openness, long seed) throws IOException {
+    Random random = new Random(seed);
+    char[][] grid = new char[height][width];
+    for (char[] row : grid) {
+      Arrays.fill(row, '#');
+    }
+
+    int[] stack = new int[width * height];
+    int top = 0;
+    stack[top++] = 1 * width + 1;
+    grid[1][1] = '.';
+    int[][] moves = new int[][]{{0, -2}, {2, 0}, {0, 2}, {-2, 0}};
+
+    while (top > 0) {
+      int cell = stack[top - 1];
+      int row = cell / width;
+      int column = cell % width;
+      int start = random.nextInt(4);
+      boolean carved = false;
+
+      for (int i=0; i<4 && carved == false; i++) {
+        int[] move = moves[(start + i) % 4];
+        int nextRow = row + move[1];
+        int nextColumn = column + move[0];
+        if (nextRow > 0 && nextRow < height - 1 && nextColumn > 0 && nextColumn < width - 1
+            && grid[nextRow][nextColumn] == '#') {
+          grid[row + move[1] / 2][column + move[0] / 2] = '.';
+          grid[nextRow][nextColumn] = '.';
+          stack[top++] = nextRow * width + nextColumn;
+          carved = true;
+        }
+      }
+      if (carved == false) {
+        top = top - 1;
+      }
+    }
+
+    for (int row=1; row<height-1; row++) {
+      for (int column=1; column<width-1; column++) {
+        if (grid[row][column] == '#' && random.nextDouble() < openness) {
+          grid[row][column] = '.';
+        }
+      }
+    }
+
+    grid[1][0] = 'e';
+    grid[height - 2][width - 1] = 'x';
+
+    File file = File.createTempFile("maze" + width + "x" + height, ".txt");
+    file.deleteOnExit();
+    try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+      for (int row=0; row<height; row++) {
+        writer.print(new String(grid[row]));
+        if (row < height - 1) {
+          writer.print('\n');
+        }
+      }
+    }
+    return file;
+  }
+}
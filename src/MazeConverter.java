@@ -0,0 +1,32 @@
+import maze.Maze;
+
+import java.io.IOException;
+
+/**  Converts maze text files into binary maze files that load without being parsed.
+*    Run from the src folder with the text files to convert, e.g.
+*    java MazeConverter ../resources/mazes/maze1.txt ../resources/mazes/maze2.txt
+*    Each file is written next to its text file with the extension .mzb
+*    @author Ashreen Kaur
+*/
+public class MazeConverter {
+
+  /**  Converts each maze text file named on the command line
+  *    @param args: the maze text files to convert
+  */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: java MazeConverter <maze.txt>...");
+    }
+
+    for (String mazeFile : args) {
+      String binaryFile = mazeFile;
+      if (binaryFile.endsWith(".txt")) {
+        binaryFile = binaryFile.substring(0, binaryFile.length() - 4);
+      }
+      binaryFile = binaryFile + ".mzb";
+
+      Maze.fromTxtParallel(mazeFile).toBinary(binaryFile);
+      System.out.println(mazeFile + " -> " + binaryFile);
+    }
+  }
+}
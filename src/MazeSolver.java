@@ -0,0 +1,42 @@
+import maze.Maze;
+import maze.routing.NoRouteFoundException;
+import maze.routing.SolveResult;
+import maze.routing.Solver;
+import maze.routing.SolverRegistry;
+
+import java.io.IOException;
+
+/**  Solves maze text files with a solver picked by name, and prints the length of each
+*    route and how long it took. Run from the src folder, e.g.
+*    java MazeSolver astar ../resources/mazes/maze1.txt ../resources/mazes/maze2.txt
+*    Run with no arguments to list the solvers that can be picked
+*    @author Ashreen Kaur
+*/
+public class MazeSolver {
+
+  /**  Solves each maze text file named on the command line
+  *    @param args: the name of the solver, then the maze text files to solve
+  */
+  public static void main(String[] args) throws IOException {
+    SolverRegistry registry = new SolverRegistry();
+    if (args.length == 0) {
+      System.out.println("Usage: java MazeSolver <solver> <maze.txt>...");
+      for (Solver solver : registry.getSolvers()) {
+        System.out.println(String.format("  %-22s %s", solver.getName(), solver.getCapabilities()));
+      }
+      return;
+    }
+
+    Solver solver = registry.get(args[0]);
+    for (int i=1; i<args.length; i++) {
+      Maze maze = Maze.fromTxtParallel(args[i]);
+      try {
+        SolveResult result = solver.solve(maze);
+        System.out.println(String.format("%s: route %d, %.1f ms", args[i], result.getRouteLength(),
+            result.getElapsedNanos() / 1e6));
+      } catch (NoRouteFoundException e) {
+        System.out.println(args[i] + ": no route");
+      }
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package maze;
+
+import java.util.Arrays;
+
+/**  Cell store keeping the whole grid in a byte array on the heap
+*    @author Ashreen Kaur
+*/
+class ArrayCellStore implements CellStore {
+
+  private byte[] cells;
+
+  /**  Constructor to create an empty ArrayCellStore
+  *    @param capacity: number of cells to make room for up front
+  */
+  ArrayCellStore(int capacity) {
+    cells = new byte[capacity];
+  }
+
+  public byte get(long index) {
+    return cells[(int) index];
+  }
+
+  public void set(long index, byte cell) {
+    cells[(int) index] = cell;
+  }
+
+  /**  Makes sure the store can hold at least the given number of cells
+  *    @param size: number of cells needed
+  */
+  void ensureCapacity(int size) {
+    if (size > cells.length) {
+      cells = Arrays.copyOf(cells, Math.max(2 * cells.length, size));
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package maze;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**  Storage for the packed grid of a Maze. Each cell is held as the ordinal of its
+*    Tile.Type and cells are numbered row by row from the top of the maze. Cell
+*    numbers are longs so stores kept off the heap can hold more than
+*    Integer.MAX_VALUE cells
+*    @author Ashreen Kaur
+*/
+interface CellStore extends Serializable, Closeable {
+
+  /**  Gets the Type ordinal stored for a cell
+  *    @param index: position of the cell in the grid
+  *    @return Returns the ordinal of the cell's Tile.Type
+  */
+  byte get(long index);
+
+  /**  Stores the Type ordinal for a cell
+  *    @param index: position of the cell in the grid
+  *    @param cell: the ordinal of the cell's Tile.Type
+  *    @throws java.lang.UnsupportedOperationException if the store is read only
+  */
+  void set(long index, byte cell);
+
+  /**  Releases any file the store holds open. Stores that hold nothing open do nothing
+  *    @throws java.io.IOException if the file cannot be closed
+  */
+  default void close() throws IOException {
+  }
+}
@@ -0,0 +1,134 @@
+package maze;
+
+import java.util.Arrays;
+
+/**  Least recently used cache of chunks keyed by chunk number, kept in plain arrays
+*    so no key is boxed and a lookup allocates nothing. Entries sit in slots linked
+*    from newest to oldest use, and a chained hash table finds the slot of a chunk
+*    number. Once the cache is full, adding a chunk reuses the slot of the oldest
+*    @author Ashreen Kaur
+*/
+class ChunkCache {
+
+  private int capacity;
+  private long[] keys;
+  private byte[][] chunks;
+  private int[] newer;
+  private int[] older;
+  private int[] chain;
+  private int[] table;
+  private int size;
+  private int newest = -1;
+  private int oldest = -1;
+
+  /**  Constructor to create a ChunkCache
+  *    @param maxChunks: most chunks to keep at once
+  */
+  ChunkCache(int maxChunks) {
+    capacity = Math.max(1, maxChunks);
+    allocate(Math.min(capacity, 16));
+  }
+
+  /**  Gets a chunk and marks it as the most recently used
+  *    @param key: the chunk number
+  *    @return Returns the cells of the chunk, or null if it is not in the cache
+  */
+  byte[] get(long key) {
+    int slot = table[bucket(key)];
+    while (slot != -1 && keys[slot] != key) {
+      slot = chain[slot];
+    }
+    if (slot == -1) {
+      return null;
+    }
+    if (slot != newest) {
+      unlink(slot);
+      linkNewest(slot);
+    }
+    return chunks[slot];
+  }
+
+  /**  Adds a chunk that is not in the cache yet, dropping the least recently used
+  *    chunk if the cache is full
+  *    @param key: the chunk number
+  *    @param chunk: the cells of the chunk
+  */
+  void put(long key, byte[] chunk) {
+    int slot;
+    if (size == capacity) {
+      slot = oldest;
+      unlink(slot);
+      removeFromTable(slot);
+    } else {
+      if (size == keys.length) {
+        allocate(Math.min(capacity, keys.length * 2));
+      }
+      slot = size;
+      size = size + 1;
+    }
+    keys[slot] = key;
+    chunks[slot] = chunk;
+    int bucket = bucket(key);
+    chain[slot] = table[bucket];
+    table[bucket] = slot;
+    linkNewest(slot);
+  }
+
+  private int bucket(long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (table.length - 1);
+  }
+
+  private void unlink(int slot) {
+    if (newer[slot] == -1) {
+      newest = older[slot];
+    } else {
+      older[newer[slot]] = older[slot];
+    }
+    if (older[slot] == -1) {
+      oldest = newer[slot];
+    } else {
+      newer[older[slot]] = newer[slot];
+    }
+  }
+
+  private void linkNewest(int slot) {
+    newer[slot] = -1;
+    older[slot] = newest;
+    if (newest == -1) {
+      oldest = slot;
+    } else {
+      newer[newest] = slot;
+    }
+    newest = slot;
+  }
+
+  private void removeFromTable(int slot) {
+    int bucket = bucket(keys[slot]);
+    if (table[bucket] == slot) {
+      table[bucket] = chain[slot];
+      return;
+    }
+    int previous = table[bucket];
+    while (chain[previous] != slot) {
+      previous = chain[previous];
+    }
+    chain[previous] = chain[slot];
+  }
+
+  // grows the slot arrays and rebuilds the hash table at twice their length
+  private void allocate(int length) {
+    int used = size;
+    keys = keys == null ? new long[length] : Arrays.copyOf(keys, length);
+    chunks = chunks == null ? new byte[length][] : Arrays.copyOf(chunks, length);
+    newer = newer == null ? new int[length] : Arrays.copyOf(newer, length);
+    older = older == null ? new int[length] : Arrays.copyOf(older, length);
+    chain = new int[length];
+    table = new int[Integer.highestOneBit(Math.max(1, length - 1)) << 2];
+    Arrays.fill(table, -1);
+    for (int slot=0; slot<used; slot++) {
+      int bucket = bucket(keys[slot]);
+      chain[slot] = table[bucket];
+      table[bucket] = slot;
+    }
+  }
+}
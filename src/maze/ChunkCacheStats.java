@@ -0,0 +1,66 @@
+package maze;
+
+/**  Snapshot of how well the chunk cache of a chunked Maze is doing, for tuning the
+*    chunk size and cache size to a workload
+*    @author Ashreen Kaur
+*/
+public class ChunkCacheStats {
+
+  private long hits;
+  private long misses;
+  private int chunkSize;
+  private int cachedChunks;
+
+  ChunkCacheStats(long hitCount, long missCount, int size, int maxChunks) {
+    hits = hitCount;
+    misses = missCount;
+    chunkSize = size;
+    cachedChunks = maxChunks;
+  }
+
+  /**  Gets the number of cell reads served from the cache
+  *    @return Returns the number of cache hits
+  */
+  public long getHits() {
+    return hits;
+  }
+
+  /**  Gets the number of cell reads that had to load a chunk from disk
+  *    @return Returns the number of cache misses
+  */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**  Gets the share of cell reads served from the cache
+  *    @return Returns the hit rate between 0 and 1, or 0 if nothing has been read
+  */
+  public double getHitRate() {
+    if (hits + misses == 0) {
+      return 0;
+    }
+    return (double) hits / (hits + misses);
+  }
+
+  /**  Gets the width and height of a chunk in cells
+  *    @return Returns the chunk size
+  */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**  Gets the most chunks the cache holds at once
+  *    @return Returns the cache capacity in chunks
+  */
+  public int getCachedChunks() {
+    return cachedChunks;
+  }
+
+  /**  Displays the statistics
+  *    @return Returns String representation of the statistics
+  */
+  public String toString() {
+    return "hits=" + hits + " misses=" + misses + " hitRate=" + String.format("%.3f", getHitRate())
+        + " chunkSize=" + chunkSize + " cachedChunks=" + cachedChunks;
+  }
+}
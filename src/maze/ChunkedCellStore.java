@@ -0,0 +1,150 @@
+package maze;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**  Cell store reading the grid from a chunk file. The grid is split into square
+*    chunks which are read from disk when first needed and kept in a bounded least
+*    recently used cache, so neighbouring cells are usually served from memory. The
+*    chunk read last is also kept in a field, and a read from the same chunk returns
+*    straight from it without a lock or a cache lookup
+*    @author Ashreen Kaur
+*/
+class ChunkedCellStore implements CellStore {
+
+  private String file;
+  private long offset;
+  private int width;
+  private int chunkSize;
+  private int chunksAcross;
+  private int maxChunks;
+  private long hits;
+  private long misses;
+  private transient FileChannel channel;
+  private transient ChunkCache cache;
+  private transient Chunk last;
+
+  // final fields, so a reader that sees the reference also sees the cells
+  private static class Chunk {
+    private final long number;
+    private final byte[] cells;
+
+    Chunk(long chunkNumber, byte[] chunkCells) {
+      number = chunkNumber;
+      cells = chunkCells;
+    }
+  }
+
+  /**  Constructor to create a ChunkedCellStore
+  *    @param chunkFile: the file holding the chunks
+  *    @param chunkOffset: position of the first chunk in the file
+  *    @param gridWidth: number of columns in the maze
+  *    @param size: width and height of a chunk in cells
+  *    @param cachedChunks: most chunks to keep in memory at once
+  *    @throws java.io.IOException if the file cannot be opened
+  */
+  ChunkedCellStore(String chunkFile, long chunkOffset, int gridWidth, int size, int cachedChunks) throws IOException {
+    file = chunkFile;
+    offset = chunkOffset;
+    width = gridWidth;
+    chunkSize = size;
+    chunksAcross = (gridWidth + size - 1) / size;
+    maxChunks = Math.max(1, cachedChunks);
+    open();
+  }
+
+  public byte get(long index) {
+    int row = (int) (index / width);
+    int column = (int) (index % width);
+    long chunkNumber = (long) (row / chunkSize) * chunksAcross + column / chunkSize;
+
+    Chunk chunk = last;
+    if (chunk == null || chunk.number != chunkNumber) {
+      chunk = load(chunkNumber);
+    } else {
+      hits = hits + 1;
+    }
+    return chunk.cells[(row % chunkSize) * chunkSize + column % chunkSize];
+  }
+
+  // only reached when a read moves to another chunk
+  private synchronized Chunk load(long chunkNumber) {
+    byte[] cells = cache.get(chunkNumber);
+    if (cells == null) {
+      misses = misses + 1;
+      cells = readChunk(chunkNumber);
+      cache.put(chunkNumber, cells);
+    } else {
+      hits = hits + 1;
+    }
+    Chunk chunk = new Chunk(chunkNumber, cells);
+    last = chunk;
+    return chunk;
+  }
+
+  public void set(long index, byte cell) {
+    throw new UnsupportedOperationException("Chunked mazes are read only");
+  }
+
+  /**  Gets the number of cell reads served from the chunk cache. Reads of the last
+  *    chunk are counted without a lock, so with several threads reading at once the
+  *    count can fall a little short
+  *    @return Returns the number of cache hits
+  */
+  synchronized long getHits() {
+    return hits;
+  }
+
+  /**  Gets the number of cell reads that had to load a chunk from disk
+  *    @return Returns the number of cache misses
+  */
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  /**  Closes the chunk file. Chunks still in the cache can be read afterwards, but
+  *    reading any other chunk fails
+  *    @throws java.io.IOException if the file cannot be closed
+  */
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  int getChunkSize() {
+    return chunkSize;
+  }
+
+  int getMaxChunks() {
+    return maxChunks;
+  }
+
+  private byte[] readChunk(long chunkNumber) {
+    ByteBuffer chunk = ByteBuffer.allocate(chunkSize * chunkSize);
+    long position = offset + chunkNumber * chunkSize * chunkSize;
+    try {
+      while (chunk.hasRemaining()) {
+        int read = channel.read(chunk, position + chunk.position());
+        if (read == -1) {
+          throw new InvalidMazeException();
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not read chunk " + chunkNumber + " of " + file, e);
+    }
+    return chunk.array();
+  }
+
+  private void open() throws IOException {
+    channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+    cache = new ChunkCache(maxChunks);
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    open();
+  }
+}
@@ -0,0 +1,102 @@
+package maze;
+
+import java.util.Arrays;
+
+/**  Finds out if two cells of a packed grid are joined by a route, with union-find in
+*    one pass over the rows. Each run of open cells in a row gets a label, and labels
+*    of runs that touch in neighbouring rows are joined. The labels are kept in a plain
+*    int array of parents, and lookups halve the path to the root as they go, which
+*    keeps the trees flat. Only two rows of labels are held at once, so the memory
+*    needed grows with the number of runs rather than the number of cells
+*    @author Ashreen Kaur
+*/
+class Connectivity {
+
+  private static final byte WALL = (byte) Tile.Type.WALL.ordinal();
+
+  private int[] parents;
+  private int labelCount;
+
+  private Connectivity() {
+    parents = new int[256];
+  }
+
+  /**  Checks if there is a route between two cells of a grid
+  *    @param cells: the grid
+  *    @param width: number of columns
+  *    @param height: number of rows
+  *    @param first: an open cell of the grid
+  *    @param second: another open cell of the grid
+  *    @return true if both cells are in the same connected region
+  */
+  static boolean isConnected(CellStore cells, int width, int height, long first, long second) {
+    Connectivity regions = new Connectivity();
+    int[] above = new int[width];
+    int[] labels = new int[width];
+    Arrays.fill(above, -1);
+    int firstLabel = -1;
+    int secondLabel = -1;
+
+    for (int row=0; row<height; row++) {
+      int label = -1;
+      int joined = -1;
+      long rowStart = (long) row * width;
+      for (int column=0; column<width; column++) {
+        if (cells.get(rowStart + column) == WALL) {
+          label = -1;
+          joined = -1;
+        } else {
+          if (label == -1) {
+            label = regions.newLabel();
+          }
+          // a run only needs joining once to each run it touches above
+          int up = above[column];
+          if (up != -1 && up != joined) {
+            regions.union(label, up);
+            joined = up;
+          }
+        }
+        labels[column] = label;
+      }
+      if (row == first / width) {
+        firstLabel = labels[(int) (first % width)];
+      }
+      if (row == second / width) {
+        secondLabel = labels[(int) (second % width)];
+      }
+      int[] swap = above;
+      above = labels;
+      labels = swap;
+    }
+
+    return firstLabel != -1 && secondLabel != -1 && regions.find(firstLabel) == regions.find(secondLabel);
+  }
+
+  private int newLabel() {
+    if (labelCount == parents.length) {
+      parents = Arrays.copyOf(parents, labelCount * 2);
+    }
+    parents[labelCount] = labelCount;
+    labelCount = labelCount + 1;
+    return labelCount - 1;
+  }
+
+  private int find(int label) {
+    while (parents[label] != label) {
+      parents[label] = parents[parents[label]];
+      label = parents[label];
+    }
+    return label;
+  }
+
+  private void union(int first, int second) {
+    int firstRoot = find(first);
+    int secondRoot = find(second);
+    // the older label wins, which keeps roots in rows already finished
+    if (firstRoot < secondRoot) {
+      parents[secondRoot] = firstRoot;
+    } else if (secondRoot < firstRoot) {
+      parents[firstRoot] = secondRoot;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package maze;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**  Walls up the dead ends of a maze before it is searched. Every corridor cell with at
+*    most one open neighbour is filled, which may leave its neighbour with only one open
+*    neighbour in turn, and so on until no dead end is left. Each cell is filled at most
+*    once, so this takes time in proportion to the size of the maze.
+*    What is left are the cells that can lie on a route from the entrance to the exit,
+*    together with any loops and parts of the maze cut off from both. In a maze without
+*    loops only the route itself is left
+*    @author Ashreen Kaur
+*/
+public class DeadEndFiller {
+
+  private static final byte CORRIDOR = (byte) Tile.Type.CORRIDOR.ordinal();
+  private static final byte WALL = (byte) Tile.Type.WALL.ordinal();
+
+  private Maze maze;
+  private BitSet filled;
+  private int filledCount;
+
+  /**  Constructor to create a DeadEndFiller. The dead ends are filled straight away
+  *    @param mazeObj: the maze to fill the dead ends of
+  */
+  public DeadEndFiller(Maze mazeObj) {
+    maze = mazeObj;
+    filled = new BitSet(maze.getWidth() * maze.getHeight());
+    fill();
+  }
+
+  /**  Fills a maze and returns what is left of it
+  *    @param maze: the maze to fill the dead ends of
+  *    @return Returns a read only view of the maze with its dead ends walled up
+  */
+  public static Maze prune(Maze maze) {
+    return new DeadEndFiller(maze).getPrunedMaze();
+  }
+
+  private void fill() {
+    CellStore cells = maze.getCellStore();
+    int width = maze.getWidth();
+    int height = maze.getHeight();
+    int size = width * height;
+    byte[] degrees = new byte[size];
+    int[] queue = new int[64];
+    int queued = 0;
+
+    for (int index=0; index<size; index++) {
+      if (cells.get(index) == WALL) {
+        continue;
+      }
+      int column = index % width;
+      byte degree = 0;
+      if (index >= width && cells.get(index - width) != WALL) {
+        degree++;
+      }
+      if (index + width < size && cells.get(index + width) != WALL) {
+        degree++;
+      }
+      if (column > 0 && cells.get(index - 1) != WALL) {
+        degree++;
+      }
+      if (column < width - 1 && cells.get(index + 1) != WALL) {
+        degree++;
+      }
+      degrees[index] = degree;
+      if (degree <= 1 && cells.get(index) == CORRIDOR) {
+        if (queued == queue.length) {
+          queue = Arrays.copyOf(queue, queued * 2);
+        }
+        queue[queued++] = index;
+      }
+    }
+
+    while (queued > 0) {
+      int index = queue[--queued];
+      filled.set(index);
+      filledCount = filledCount + 1;
+
+      // the one open neighbour left, if there is one, loses a way out
+      int column = index % width;
+      int next = -1;
+      if (index >= width && isOpen(cells, index - width)) {
+        next = index - width;
+      } else if (index + width < size && isOpen(cells, index + width)) {
+        next = index + width;
+      } else if (column > 0 && isOpen(cells, index - 1)) {
+        next = index - 1;
+      } else if (column < width - 1 && isOpen(cells, index + 1)) {
+        next = index + 1;
+      }
+      if (next != -1) {
+        degrees[next]--;
+        if (degrees[next] == 1 && cells.get(next) == CORRIDOR) {
+          if (queued == queue.length) {
+            queue = Arrays.copyOf(queue, queued * 2);
+          }
+          queue[queued++] = next;
+        }
+      }
+    }
+  }
+
+  private boolean isOpen(CellStore cells, int index) {
+    return cells.get(index) != WALL && filled.get(index) == false;
+  }
+
+  /**  Gets the number of cells that were walled up
+  *    @return Returns the filled cell count
+  */
+  public int getFilledCount() {
+    return filledCount;
+  }
+
+  /**  Checks if a cell was walled up as part of a dead end
+  *    @param index: position of the cell, see Maze.indexAt
+  *    @return true if the cell was filled
+  */
+  public boolean isFilled(int index) {
+    return filled.get(index);
+  }
+
+  /**  Gets the maze with its dead ends walled up. The cells are shared with the
+  *    original maze rather than copied, and the view is read only
+  *    @return Returns the pruned Maze
+  */
+  public Maze getPrunedMaze() {
+    return Maze.fromCells(new PrunedCellStore(maze.getCellStore(), filled), maze.getWidth(),
+        maze.getHeight(), maze.getEntranceIndex(), maze.getExitIndex());
+  }
+}
@@ -0,0 +1,63 @@
+package maze;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**  Cell store reading the grid straight out of a memory-mapped grid file. The grid
+*    stays off the heap and the operating system pages cells in as they are read. The
+*    file is mapped in segments as a single mapping cannot exceed 2GB
+*    @author Ashreen Kaur
+*/
+class MappedCellStore implements CellStore {
+
+  private static final int SEGMENT_BITS = 30;
+  private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+  private String file;
+  private long offset;
+  private long size;
+  private transient MappedByteBuffer[] segments;
+
+  /**  Constructor to create a MappedCellStore
+  *    @param gridFile: the file holding the grid
+  *    @param gridOffset: position of the first cell in the file
+  *    @param cellCount: number of cells in the grid
+  *    @throws java.io.IOException if the file cannot be mapped
+  */
+  MappedCellStore(String gridFile, long gridOffset, long cellCount) throws IOException {
+    file = gridFile;
+    offset = gridOffset;
+    size = cellCount;
+    map();
+  }
+
+  public byte get(long index) {
+    return segments[(int) (index >>> SEGMENT_BITS)].get((int) (index & SEGMENT_MASK));
+  }
+
+  public void set(long index, byte cell) {
+    throw new UnsupportedOperationException("Mapped mazes are read only");
+  }
+
+  private void map() throws IOException {
+    int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS);
+    segments = new MappedByteBuffer[count];
+
+    try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+      for (int i=0; i<count; i++) {
+        long start = (long) i << SEGMENT_BITS;
+        long length = Math.min(size - start, 1L << SEGMENT_BITS);
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start, length);
+      }
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    map();
+  }
+}
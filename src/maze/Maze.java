@@ -1,112 +1,614 @@
 package maze;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
 import java.io.Serializable;
  
 
 
-/**  Class to create Maze objects
+/**  Class to create Maze objects. A maze opened with fromChunkFile holds its chunk
+*    file open until it is closed, so open it in a try-with-resources statement
 *    @author Ashreen Kaur
 */
-public class Maze implements Serializable{
+public class Maze implements Serializable, Closeable {
+
+  private static final Tile.Type[] TYPES = Tile.Type.values();
+  private static final byte WALL = (byte) Tile.Type.WALL.ordinal();
+  private static final int GRID_MAGIC = 0x4d5a4752;
+  private static final int GRID_HEADER_SIZE = 32;
+  private static final int CHUNK_MAGIC = 0x4d5a434b;
+  private static final int BINARY_MAGIC = 0x4d5a4231;
 
   private Tile entrance;
   private Tile exit;
   private List<List<Tile>> tiles;
+  private int width;
+  private int height;
+  private CellStore store;
+  private TileCache tileCache;
+  private transient Boolean solvable;
 
 
 
   private Maze() {
-    tiles = new ArrayList<List<Tile>>();
+    store = new ArrayCellStore(0);
+    tileCache = new TileCache();
+    tiles = new TileRows();
   }
 
-  /**  Reads in text file containing the maze structure
+  /**  Reads in text file containing the maze structure. The file is read in blocks
+  *    straight into the packed grid and each row is checked as soon as it ends
   *    @param mazeFile: the file containing the maze structure
   *    @throws java.io.FileNotFoundException if there no file is found
   *    @throws java.io.IOException if input format is invalid
+  *    @throws maze.InvalidMazeException if the file holds a character that is not a tile
   *    @throws maze.NoEntranceException if there is no entrance in maze
   *    @throws maze.NoExitException if there is no exit in maze
-  *    @throws maze.RaggedMazeException
+  *    @throws maze.MultipleEntranceException if there is more than one entrance in maze
+  *    @throws maze.MultipleExitException if there is more than one exit in maze
+  *    @throws maze.RaggedMazeException if the rows of the maze are not all the same width
   *    @return Returns a Maze object with tiles attribute set to hold the maze structure
   */
   public static Maze fromTxt(String mazeFile) {
-    String line;
-    boolean entranceSet = false;
-    boolean exitSet = false;
-    List<Tile> tempList;
     Maze maze = new Maze();
 
-    try (BufferedReader mazeReader = new BufferedReader(new FileReader(mazeFile))) {
-      line = mazeReader.readLine();
-      do {
+    try {
+      maze = readTxt(mazeFile);
+    } catch (NoSuchFileException | FileNotFoundException e) {
+      System.out.println("File was not found");
+    } catch (IOException e) {
+      System.out.println("Something went wrong while reading the file");
+    }
 
-        tempList = new ArrayList<Tile>();
-        for (int i=0; i<line.length(); i++) {
-          tempList.add(Tile.fromChar(line.charAt(i)));
-        }
+    return maze;
+  }
+
+  /**  Reads in a text file containing the maze structure using every core. The file is
+  *    memory-mapped and split into runs of rows that are parsed side by side on the
+  *    common fork-join pool, so it is worth using for files of many megabytes. Files
+  *    whose rows are not all the same length are handed to fromTxt to report the error
+  *    @param mazeFile: the file containing the maze structure
+  *    @throws java.io.IOException if the file cannot be read
+  *    @throws maze.InvalidMazeException if the file holds a character that is not a tile
+  *    @throws maze.NoEntranceException if there is no entrance in maze
+  *    @throws maze.NoExitException if there is no exit in maze
+  *    @throws maze.MultipleEntranceException if there is more than one entrance in maze
+  *    @throws maze.MultipleExitException if there is more than one exit in maze
+  *    @throws maze.RaggedMazeException if the rows of the maze are not all the same width
+  *    @return Returns a Maze object with tiles attribute set to hold the maze structure
+  */
+  public static Maze fromTxtParallel(String mazeFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(mazeFile), StandardOpenOption.READ)) {
+      ParallelMazeParser parser = new ParallelMazeParser(channel);
+      if (parser.plan() == true && parser.parse(ForkJoinPool.commonPool()) == true) {
+        return fromCells(parser.getCells(), parser.getWidth(), parser.getHeight(),
+            parser.getEntranceIndex(), parser.getExitIndex());
+      }
+    }
+
+    return readTxt(mazeFile);
+  }
+
+  /**  Reads a maze text file from start to end with a single MazeParser
+  *    @param mazeFile: the file containing the maze structure
+  *    @throws java.io.IOException if the file cannot be read
+  *    @return Returns a Maze object holding the parsed cells
+  */
+  private static Maze readTxt(String mazeFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(mazeFile), StandardOpenOption.READ)) {
+      return readTxt(channel, (int) Math.min(channel.size(), Integer.MAX_VALUE));
+    }
+  }
+
+  /**  Reads maze text from a channel, unpacking it first if it is gzip compressed
+  *    @param channel: the channel to read from
+  *    @param capacity: expected number of cells, or 0 if not known
+  *    @throws java.io.IOException if the channel cannot be read
+  *    @return Returns a Maze object holding the parsed cells
+  */
+  private static Maze readTxt(ReadableByteChannel channel, int capacity) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    while (buffer.position() < 2 && channel.read(buffer) != -1) {
+      continue;
+    }
+    buffer.flip();
+    if (isGzip(buffer)) {
+      InputStream rest = Channels.newInputStream(channel);
+      InputStream whole = new SequenceInputStream(
+          new ByteArrayInputStream(buffer.array(), 0, buffer.limit()), rest);
+      return readTxt(new GZIPInputStream(whole, 1 << 16));
+    }
+
+    MazeParser parser = new MazeParser(capacity);
+    parser.parse(buffer);
+    buffer.clear();
+    while (channel.read(buffer) != -1) {
+      buffer.flip();
+      parser.parse(buffer);
+      buffer.clear();
+    }
+    parser.finish();
+    return fromParser(parser);
+  }
+
+  /**  Reads plain maze text from a stream
+  *    @param in: the stream to read from
+  *    @throws java.io.IOException if the stream cannot be read
+  *    @return Returns a Maze object holding the parsed cells
+  */
+  private static Maze readTxt(InputStream in) throws IOException {
+    MazeParser parser = new MazeParser(0);
+    byte[] bytes = new byte[1 << 16];
+    int read = in.read(bytes);
+    while (read != -1) {
+      parser.parse(bytes, 0, read);
+      read = in.read(bytes);
+    }
+    parser.finish();
+    return fromParser(parser);
+  }
+
+  private static boolean isGzip(ByteBuffer buffer) {
+    return buffer.remaining() >= 2
+        && (buffer.get(buffer.position()) & 0xff) == 0x1f
+        && (buffer.get(buffer.position() + 1) & 0xff) == 0x8b;
+  }
+
+  /**  Reads maze text from a stream, such as a pipe, an archive entry or System.in.
+  *    The text is parsed as it arrives, with the same checks as fromTxt(String), and
+  *    gzip compressed text is recognised and unpacked. The stream is not closed
+  *    @param in: the stream to read from
+  *    @throws java.io.IOException if the stream cannot be read
+  *    @throws maze.InvalidMazeException if the text holds a character that is not a tile
+  *    @throws maze.NoEntranceException if there is no entrance in maze
+  *    @throws maze.NoExitException if there is no exit in maze
+  *    @throws maze.MultipleEntranceException if there is more than one entrance in maze
+  *    @throws maze.MultipleExitException if there is more than one exit in maze
+  *    @throws maze.RaggedMazeException if the rows of the maze are not all the same width
+  *    @return Returns a Maze object holding the parsed cells
+  */
+  public static Maze fromTxt(InputStream in) throws IOException {
+    BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+    buffered.mark(2);
+    int first = buffered.read();
+    int second = buffered.read();
+    buffered.reset();
+    if (first == 0x1f && second == 0x8b) {
+      return readTxt(new GZIPInputStream(buffered, 1 << 16));
+    }
+    return readTxt(buffered);
+  }
+
+  /**  Reads maze text from a channel. The text is parsed as it arrives, with the same
+  *    checks as fromTxt(String), and gzip compressed text is recognised and unpacked.
+  *    The channel is not closed
+  *    @param channel: the channel to read from
+  *    @throws java.io.IOException if the channel cannot be read
+  *    @throws maze.InvalidMazeException if the text holds a character that is not a tile
+  *    @throws maze.NoEntranceException if there is no entrance in maze
+  *    @throws maze.NoExitException if there is no exit in maze
+  *    @throws maze.MultipleEntranceException if there is more than one entrance in maze
+  *    @throws maze.MultipleExitException if there is more than one exit in maze
+  *    @throws maze.RaggedMazeException if the rows of the maze are not all the same width
+  *    @return Returns a Maze object holding the parsed cells
+  */
+  public static Maze fromTxt(ReadableByteChannel channel) throws IOException {
+    return readTxt(channel, 0);
+  }
+
+  /**  Reads maze text held in a buffer, from its position to its limit. The buffer's
+  *    position is left unchanged, and gzip compressed text is recognised and unpacked
+  *    @param buffer: the buffer holding the maze text
+  *    @throws java.io.IOException if compressed text cannot be unpacked
+  *    @throws maze.InvalidMazeException if the text holds a character that is not a tile
+  *    @throws maze.NoEntranceException if there is no entrance in maze
+  *    @throws maze.NoExitException if there is no exit in maze
+  *    @throws maze.MultipleEntranceException if there is more than one entrance in maze
+  *    @throws maze.MultipleExitException if there is more than one exit in maze
+  *    @throws maze.RaggedMazeException if the rows of the maze are not all the same width
+  *    @return Returns a Maze object holding the parsed cells
+  */
+  public static Maze fromTxt(ByteBuffer buffer) throws IOException {
+    ByteBuffer text = buffer.duplicate();
+    if (isGzip(text)) {
+      byte[] bytes = new byte[text.remaining()];
+      text.get(bytes);
+      return readTxt(new GZIPInputStream(new ByteArrayInputStream(bytes), 1 << 16));
+    }
+
+    MazeParser parser = new MazeParser(text.remaining());
+    parser.parse(text);
+    parser.finish();
+    return fromParser(parser);
+  }
 
-        maze.tiles.add(tempList);
 
-        for (int i=0; i<tempList.size(); i++) {
-          if (tempList.get(i).getType() == Tile.Type.ENTRANCE) {
-            maze.setEntrance(tempList.get(i));
-            entranceSet = true;
+  /**  Builds a Maze from a parser that has been given the whole maze text
+  *    @param parser: the finished parser
+  *    @throws maze.NoEntranceException if there is no entrance in maze
+  *    @throws maze.NoExitException if there is no exit in maze
+  *    @return Returns a Maze object holding the parsed cells
+  */
+  private static Maze fromParser(MazeParser parser) {
+    return fromCells(parser.getCells(), parser.getWidth(), parser.getHeight(),
+        parser.getEntranceIndex(), parser.getExitIndex());
+  }
 
-          } else if (tempList.get(i).getType() == Tile.Type.EXIT) {
-            maze.setExit(tempList.get(i));
-            exitSet = true;
+  /**  Builds a Maze around parsed cells
+  *    @param cells: the parsed cells
+  *    @param width: number of columns
+  *    @param height: number of rows
+  *    @param entranceIndex: position of the entrance, or -1 if none was found
+  *    @param exitIndex: position of the exit, or -1 if none was found
+  *    @throws maze.NoEntranceException if there is no entrance in maze
+  *    @throws maze.NoExitException if there is no exit in maze
+  *    @return Returns a Maze object holding the cells
+  */
+  static Maze fromCells(CellStore cells, int width, int height, int entranceIndex, int exitIndex) {
+    Maze maze = new Maze();
+    maze.store = cells;
+    maze.width = width;
+    maze.height = height;
 
-          } else {
-            continue;
+    if (entranceIndex == -1) {throw new NoEntranceException();}
+    if (exitIndex == -1) {throw new NoExitException();}
+    maze.setEntrance(maze.tileAt(entranceIndex));
+    maze.setExit(maze.tileAt(exitIndex));
+    return maze;
+  }
+
+  /**  Opens a grid file written by toGridFile. The file is memory-mapped rather than
+  *    read, so mazes larger than the heap can be routed over; cells are paged in by the
+  *    operating system as they are visited. The grid may hold more than
+  *    Integer.MAX_VALUE cells, which are reached through the long index methods. The
+  *    route finders in maze.routing copy the cells into one array first, so they only
+  *    take mazes of up to about Integer.MAX_VALUE cells, counting a border of walls,
+  *    and throw IllegalArgumentException for larger ones. The maze is read only
+  *    @param gridFile: the grid file to map
+  *    @throws java.io.IOException if the file cannot be read or mapped
+  *    @throws maze.InvalidMazeException if the file is not a complete grid file
+  *    @throws maze.NoEntranceException if the recorded entrance is not an entrance tile
+  *    @throws maze.NoExitException if the recorded exit is not an exit tile
+  *    @return Returns a Maze object reading its tiles from the mapped file
+  */
+  public static Maze fromGridFile(String gridFile) throws IOException {
+    ByteBuffer header = readHeader(gridFile, GRID_MAGIC);
+    long fileSize = Files.size(Paths.get(gridFile));
+
+    Maze maze = new Maze();
+    maze.width = header.getInt();
+    maze.height = header.getInt();
+    int entranceLow = header.getInt();
+    int exitLow = header.getInt();
+    long entranceIndex = joinIndex(header.getInt(), entranceLow);
+    long exitIndex = joinIndex(header.getInt(), exitLow);
+    long cellCount = maze.getCellCount();
+    if (maze.width < 0 || maze.height < 0 || fileSize < GRID_HEADER_SIZE + cellCount) {
+      throw new InvalidMazeException();
+    }
+
+    maze.store = new MappedCellStore(gridFile, GRID_HEADER_SIZE, cellCount);
+    maze.checkEntranceAndExit(entranceIndex, exitIndex);
+    return maze;
+  }
+
+  /**  Writes the maze to a grid file that can be opened with fromGridFile. The file
+  *    holds a short header followed by one byte per cell. The entrance and exit are
+  *    written as the low halves of their indexes, with the high halves later in the
+  *    header where older files left zeros
+  *    @param gridFile: name of the file to write
+  *    @throws java.io.IOException if the file cannot be written
+  */
+  public void toGridFile(String gridFile) throws IOException {
+    long entranceIndex = cellOf(entrance);
+    long exitIndex = cellOf(exit);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(gridFile), 1 << 16))) {
+      out.writeInt(GRID_MAGIC);
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeInt((int) entranceIndex);
+      out.writeInt((int) exitIndex);
+      out.writeInt((int) (entranceIndex >>> 32));
+      out.writeInt((int) (exitIndex >>> 32));
+      out.write(new byte[GRID_HEADER_SIZE - 28]);
+
+      for (long i=0; i<getCellCount(); i++) {
+        out.write(store.get(i));
+      }
+    }
+  }
+
+  /**  Opens a chunk file written by toChunkFile. Chunks are read from disk as the
+  *    maze is explored and the most recently used ones are kept in memory, which keeps
+  *    routing over mazes that do not fit in memory close to the speed of an in-heap
+  *    maze. The maze is read only
+  *    @param chunkFile: the chunk file to open
+  *    @param cachedChunks: most chunks to keep in memory at once
+  *    @throws java.io.IOException if the file cannot be read
+  *    @throws maze.InvalidMazeException if the file is not a complete chunk file
+  *    @throws maze.NoEntranceException if the recorded entrance is not an entrance tile
+  *    @throws maze.NoExitException if the recorded exit is not an exit tile
+  *    @return Returns a Maze object reading its tiles through the chunk cache
+  */
+  public static Maze fromChunkFile(String chunkFile, int cachedChunks) throws IOException {
+    ByteBuffer header = readHeader(chunkFile, CHUNK_MAGIC);
+    long fileSize = Files.size(Paths.get(chunkFile));
+
+    Maze maze = new Maze();
+    maze.width = header.getInt();
+    maze.height = header.getInt();
+    int entranceLow = header.getInt();
+    int exitLow = header.getInt();
+    int chunkSize = header.getInt();
+    long entranceIndex = joinIndex(header.getInt(), entranceLow);
+    long exitIndex = joinIndex(header.getInt(), exitLow);
+    if (maze.width < 0 || maze.height < 0 || chunkSize <= 0) {
+      throw new InvalidMazeException();
+    }
+    long chunksAcross = (maze.width + chunkSize - 1) / chunkSize;
+    long chunksDown = (maze.height + chunkSize - 1) / chunkSize;
+    if (fileSize < GRID_HEADER_SIZE + chunksAcross * chunksDown * chunkSize * chunkSize) {
+      throw new InvalidMazeException();
+    }
+
+    maze.store = new ChunkedCellStore(chunkFile, GRID_HEADER_SIZE, maze.width, chunkSize, cachedChunks);
+    maze.checkEntranceAndExit(entranceIndex, exitIndex);
+    return maze;
+  }
+
+  /**  Writes the maze to a chunk file that can be opened with fromChunkFile. The grid
+  *    is cut into square chunks that are stored one after another, with the chunks on
+  *    the right and bottom edges padded out with walls
+  *    @param chunkFile: name of the file to write
+  *    @param chunkSize: width and height of a chunk in cells, e.g. 256
+  *    @throws java.io.IOException if the file cannot be written
+  */
+  public void toChunkFile(String chunkFile, int chunkSize) throws IOException {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    int chunksAcross = (width + chunkSize - 1) / chunkSize;
+    int chunksDown = (height + chunkSize - 1) / chunkSize;
+    long entranceIndex = cellOf(entrance);
+    long exitIndex = cellOf(exit);
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(chunkFile), 1 << 16))) {
+      out.writeInt(CHUNK_MAGIC);
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeInt((int) entranceIndex);
+      out.writeInt((int) exitIndex);
+      out.writeInt(chunkSize);
+      out.writeInt((int) (entranceIndex >>> 32));
+      out.writeInt((int) (exitIndex >>> 32));
+
+      byte[] chunk = new byte[chunkSize * chunkSize];
+      for (int chunkRow=0; chunkRow<chunksDown; chunkRow++) {
+        for (int chunkColumn=0; chunkColumn<chunksAcross; chunkColumn++) {
+          for (int i=0; i<chunkSize; i++) {
+            for (int j=0; j<chunkSize; j++) {
+              int row = chunkRow * chunkSize + i;
+              int column = chunkColumn * chunkSize + j;
+              if (row < height && column < width) {
+                chunk[i * chunkSize + j] = store.get((long) row * width + column);
+              } else {
+                chunk[i * chunkSize + j] = WALL;
+              }
+            }
           }
+          out.write(chunk);
         }
+      }
+    }
+  }
 
-        line = mazeReader.readLine();
-      } while (line != null);
+  /**  Gets the hit and miss counts of the chunk cache of a maze opened with fromChunkFile
+  *    @return Returns a snapshot of the cache statistics, or null if the maze is not chunked
+  */
+  public ChunkCacheStats getChunkCacheStats() {
+    if (store instanceof ChunkedCellStore) {
+      ChunkedCellStore chunks = (ChunkedCellStore) store;
+      return new ChunkCacheStats(chunks.getHits(), chunks.getMisses(), chunks.getChunkSize(), chunks.getMaxChunks());
+    }
+    return null;
+  }
 
-      if (entranceSet==false) {throw new NoEntranceException();}
-      if (exitSet==false) {throw new NoExitException();}
+  /**  Releases the file held open by a maze opened with fromChunkFile. Other mazes
+  *    hold nothing open, and closing them does nothing
+  *    @throws java.io.IOException if the file cannot be closed
+  */
+  public void close() throws IOException {
+    store.close();
+  }
 
-      int setLength = maze.tiles.get(0).size();
-      for (int i=0; i<maze.tiles.size(); i++) {
-        if (maze.tiles.get(i).size() != setLength) {
-          throw new RaggedMazeException();
-        }
+  /**  Reads a binary maze file written by toBinary. The cells are read in one bulk
+  *    read and checked against the stored checksum; no cell is validated on its own,
+  *    and they stay packed at two bits per cell in memory
+  *    @param binaryFile: the binary maze file to read
+  *    @throws java.io.IOException if the file cannot be read
+  *    @throws maze.InvalidMazeException if the file is incomplete or fails its checksum
+  *    @throws maze.NoEntranceException if the recorded entrance is not an entrance tile
+  *    @throws maze.NoExitException if the recorded exit is not an exit tile
+  *    @return Returns a Maze object holding the cells of the file
+  */
+  public static Maze fromBinary(String binaryFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(binaryFile), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new InvalidMazeException();
       }
-    } catch (FileNotFoundException e) {
-      System.out.println("File was not found");
-    } catch (IOException e) {
-      System.out.println("Something went wrong while reading the file");
+      ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+        continue;
+      }
+      buffer.flip();
+      Maze maze = readBinary(buffer);
+      if (buffer.hasRemaining()) {
+        throw new InvalidMazeException();
+      }
+      return maze;
     }
+  }
 
+  /**  Reads one maze in the binary maze format from a buffer, leaving the buffer
+  *    positioned just after it
+  *    @param buffer: the buffer holding the maze, from its position
+  *    @throws maze.InvalidMazeException if the maze is incomplete or fails its checksum
+  *    @throws maze.NoEntranceException if the recorded entrance is not an entrance tile
+  *    @throws maze.NoExitException if the recorded exit is not an exit tile
+  *    @return Returns a Maze object holding the cells read
+  */
+  static Maze readBinary(ByteBuffer buffer) {
+    if (buffer.remaining() < GRID_HEADER_SIZE) {
+      throw new InvalidMazeException();
+    }
+    int start = buffer.position();
+    if (buffer.getInt() != BINARY_MAGIC) {
+      throw new InvalidMazeException();
+    }
+    Maze maze = new Maze();
+    maze.width = buffer.getInt();
+    maze.height = buffer.getInt();
+    int entranceIndex = buffer.getInt();
+    int exitIndex = buffer.getInt();
+    int checksum = buffer.getInt();
+    if (maze.width < 0 || maze.height < 0 || (long) maze.width * maze.height > Integer.MAX_VALUE) {
+      throw new InvalidMazeException();
+    }
+
+    byte[] packed = new byte[PackedCellStore.packedSize(maze.width * maze.height)];
+    buffer.position(start + GRID_HEADER_SIZE);
+    if (buffer.remaining() < packed.length) {
+      throw new InvalidMazeException();
+    }
+    buffer.get(packed);
+
+    CRC32 crc = new CRC32();
+    crc.update(packed, 0, packed.length);
+    if ((int) crc.getValue() != checksum) {
+      throw new InvalidMazeException();
+    }
+
+    maze.store = new PackedCellStore(packed);
+    maze.checkEntranceAndExit(entranceIndex, exitIndex);
     return maze;
   }
 
+  /**  Writes the maze to a binary maze file that can be read with fromBinary. The file
+  *    holds a header with the size, entrance, exit and a CRC32 checksum, followed by
+  *    the cells packed four to a byte
+  *    @param binaryFile: name of the file to write
+  *    @throws java.io.IOException if the file cannot be written
+  */
+  public void toBinary(String binaryFile) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFile), 1 << 16))) {
+      writeBinary(out);
+    }
+  }
+
+  /**  Writes the maze in the binary maze format to a stream
+  *    @param out: the stream to write to
+  *    @throws java.io.IOException if the stream cannot be written
+  *    @throws java.lang.UnsupportedOperationException if the maze has more than
+  *    Integer.MAX_VALUE cells
+  *    @return Returns the number of bytes written
+  */
+  long writeBinary(DataOutputStream out) throws IOException {
+    if (getCellCount() > Integer.MAX_VALUE) {
+      throw new UnsupportedOperationException("Binary maze files hold at most " + Integer.MAX_VALUE + " cells");
+    }
+    PackedCellStore packed = new PackedCellStore(new byte[PackedCellStore.packedSize(width * height)]);
+    for (int i=0; i<width*height; i++) {
+      packed.set(i, store.get(i));
+    }
+    CRC32 crc = new CRC32();
+    crc.update(packed.getPacked(), 0, packed.getPacked().length);
+
+    out.writeInt(BINARY_MAGIC);
+    out.writeInt(width);
+    out.writeInt(height);
+    out.writeInt(getTileIndex(entrance));
+    out.writeInt(getTileIndex(exit));
+    out.writeInt((int) crc.getValue());
+    out.write(new byte[GRID_HEADER_SIZE - 24]);
+    out.write(packed.getPacked());
+    return GRID_HEADER_SIZE + packed.getPacked().length;
+  }
+
+  /**  Reads the fixed size header at the start of a grid or chunk file
+  *    @param file: the file to read
+  *    @param magic: the number the file must start with
+  *    @throws java.io.IOException if the file cannot be read
+  *    @throws maze.InvalidMazeException if the file is too short or has the wrong magic number
+  *    @return Returns the header, positioned just after the magic number
+  */
+  private static ByteBuffer readHeader(String file, int magic) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(GRID_HEADER_SIZE);
+    try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+      while (header.hasRemaining() && channel.read(header) != -1) {
+        continue;
+      }
+    }
+    header.flip();
+    if (header.remaining() < GRID_HEADER_SIZE || header.getInt() != magic) {
+      throw new InvalidMazeException();
+    }
+    return header;
+  }
+
+  // grid and chunk files keep the two halves of an index apart, see toGridFile
+  private static long joinIndex(int high, int low) {
+    return (long) high << 32 | (low & 0xffffffffL);
+  }
+
+  /**  Sets the entrance and exit from cell positions recorded in a file
+  *    @param entranceIndex: recorded position of the entrance
+  *    @param exitIndex: recorded position of the exit
+  *    @throws maze.NoEntranceException if the entrance position does not hold an entrance
+  *    @throws maze.NoExitException if the exit position does not hold an exit
+  */
+  private void checkEntranceAndExit(long entranceIndex, long exitIndex) {
+    if (entranceIndex < 0 || entranceIndex >= getCellCount() || typeAt(entranceIndex) != Tile.Type.ENTRANCE) {
+      throw new NoEntranceException();
+    }
+    if (exitIndex < 0 || exitIndex >= getCellCount() || typeAt(exitIndex) != Tile.Type.EXIT) {
+      throw new NoExitException();
+    }
+    setEntrance(tileAt(entranceIndex));
+    setExit(tileAt(exitIndex));
+  }
+
   /**  Gets Tile adjacent to the specified tile in a given direction
   *    @param tile: specified tile to find an adjacent Tile
   *    @param direction: direction of adjacent Tile
   *    @return return the adjacent Tile
   */
   public Tile getAdjacentTile(Tile tile, Direction direction) {
-    Coordinate tileLocation = this.getTileLocation(tile);
-    int x = tileLocation.getX();
-    int y = tileLocation.getY();
-    if (direction == Direction.NORTH) {
-      y = y + 1;
-    } else if (direction == Direction.SOUTH) {
-      y = y - 1;
-    } else if (direction == Direction.EAST) {
-      x = x + 1;
-    } else if (direction == Direction.WEST) {
-      x = x - 1;
-    }
-    Coordinate coordinate = new Coordinate(x, y);
-    Tile adjacentTile = this.getTileAtLocation(coordinate);
+    long adjacentIndex = neighbor(requireCell(tile), direction);
+    if (adjacentIndex == -1) {
+      throw new IndexOutOfBoundsException("No tile " + direction + " of " + getTileLocation(tile));
+    }
+    Tile adjacentTile = this.tileAt(adjacentIndex);
     return adjacentTile;
   }
 
@@ -127,27 +629,188 @@ public class Maze implements Serializable{
 
 
 
-  /**  Accesses the tile attribute of this class
+  /**  Accesses the tile attribute of this class. The rows are a view over the packed
+  *    grid, so Tile objects are only created for the cells that are actually read
   *    @return Returns a List object consisting of List objects holding objects of type Tile
   */
   public List<List<Tile>> getTiles() {
     return tiles;
   }
 
+  /**  Gets the number of columns in the maze
+  *    @return Returns the width of the maze
+  */
+  public int getWidth() {
+    return width;
+  }
+
+  /**  Gets the number of rows in the maze
+  *    @return Returns the height of the maze
+  */
+  public int getHeight() {
+    return height;
+  }
+
+  /**  Gets the number of cells in the maze, which can be more than Integer.MAX_VALUE
+  *    for a maze opened with fromGridFile or fromChunkFile
+  *    @return Returns the width times the height of the maze
+  */
+  public long getCellCount() {
+    return (long) width * height;
+  }
+
+  /**  Gets the Type of a cell of the packed grid. Cells are numbered row by row from
+  *    the top of the maze, so the cell in text row r and column c is r*getWidth()+c.
+  *    Cell indexes are longs so every cell of a maze opened from a grid file can be
+  *    reached; the methods returning int indexes throw ArithmeticException for cells
+  *    past Integer.MAX_VALUE, and their long overloads should be used instead
+  *    @param index: position of the cell in the packed grid
+  *    @return Returns the Type of the cell
+  */
+  public Tile.Type typeAt(long index) {
+    return TYPES[store.get(index)];
+  }
+  /**  Checks if a cell of the packed grid is navigable (only Type WALL is not navigable)
+  *    @param index: position of the cell in the packed grid
+  *    @return true if the cell is navigable, and false if it is not navigable
+  */
+  public boolean isNavigable(long index) {
+    return store.get(index) != WALL;
+  }
+
+  /**  Opens or closes a cell of the packed grid, turning it into a corridor or a wall.
+  *    Tiles cannot change, so a Tile handed out for the cell before the change keeps
+  *    its old Type and is no longer part of the maze. Route finders already running
+  *    copy the cells when they start and do not see the change; IncrementalPlanner
+  *    can be told about it instead of starting again
+  *    @param index: position of the cell in the packed grid
+  *    @param navigable: true to make the cell a corridor, false to make it a wall
+  *    @throws java.lang.IndexOutOfBoundsException if the cell is outside the maze
+  *    @throws java.lang.IllegalArgumentException if the cell is the entrance or the exit
+  *    @throws java.lang.UnsupportedOperationException if the maze is read only
+  */
+  public void setNavigable(long index, boolean navigable) {
+    if (index < 0 || index >= getCellCount()) {
+      throw new IndexOutOfBoundsException("No cell " + index);
+    }
+    if (index == cellOf(entrance) || index == cellOf(exit)) {
+      throw new IllegalArgumentException("The entrance and exit cannot be changed");
+    }
+    Tile.Type type = navigable ? Tile.Type.CORRIDOR : Tile.Type.WALL;
+    if (typeAt(index) == type) {
+      return;
+    }
+    store.set(index, (byte) type.ordinal());
+    tileCache.remove(index);
+    solvable = null;
+  }
+
+  /**  Gets the position in the packed grid of a location. This and the other index
+  *    methods let solvers walk the maze without creating Coordinate or Tile objects
+  *    @param x: x value of the location
+  *    @param y: y value of the location, counted from the bottom row as in Coordinate
+  *    @throws java.lang.ArithmeticException if the index does not fit in an int
+  *    @return Returns the index of the cell, or -1 if the location is outside the maze
+  */
+  public int indexAt(int x, int y) {
+    return Math.toIntExact(indexAt((long) x, (long) y));
+  }
+
+  /**  Gets the position in the packed grid of a location, for mazes of any size
+  *    @param x: x value of the location
+  *    @param y: y value of the location, counted from the bottom row as in Coordinate
+  *    @return Returns the index of the cell, or -1 if the location is outside the maze
+  */
+  public long indexAt(long x, long y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      return -1;
+    }
+    return ((height-1) - y) * width + x;
+  }
+
+  /**  Gets the x value of a cell of the packed grid
+  *    @param index: position of the cell in the packed grid
+  *    @return Returns the x value of the cell
+  */
+  public int xOf(long index) {
+    return (int) (index % width);
+  }
+
+  /**  Gets the y value of a cell of the packed grid, counted from the bottom row
+  *    @param index: position of the cell in the packed grid
+  *    @return Returns the y value of the cell
+  */
+  public int yOf(long index) {
+    return (height-1) - (int) (index / width);
+  }
+
+  /**  Gets the cell next to a cell of the packed grid in a given direction
+  *    @param index: position of the cell in the packed grid
+  *    @param direction: direction of the neighbouring cell
+  *    @throws java.lang.ArithmeticException if the neighbouring index does not fit in an int
+  *    @return Returns the index of the neighbouring cell, or -1 if it is outside the maze
+  */
+  public int neighbor(int index, Direction direction) {
+    return Math.toIntExact(neighbor((long) index, direction));
+  }
+
+  /**  Gets the cell next to a cell of the packed grid in a given direction, for mazes
+  *    of any size
+  *    @param index: position of the cell in the packed grid
+  *    @param direction: direction of the neighbouring cell
+  *    @return Returns the index of the neighbouring cell, or -1 if it is outside the maze
+  */
+  public long neighbor(long index, Direction direction) {
+    if (index < 0 || index >= getCellCount()) {
+      return -1;
+    }
+    long column = index % width + direction.getDx();
+    long row = index / width - direction.getDy();
+    if (column < 0 || column >= width || row < 0 || row >= height) {
+      return -1;
+    }
+    return row * width + column;
+  }
+
+  /**  Checks if the exit can be reached from the entrance. The first call finds the
+  *    connected regions of the maze with union-find in one pass over the cells, and
+  *    the answer is kept, so an unsolvable maze can be turned away before a route
+  *    finder is run on it
+  *    @return true if there is a route from the entrance to the exit
+  */
+  public boolean isSolvable() {
+    if (solvable == null) {
+      solvable = Connectivity.isConnected(store, width, height, cellOf(entrance), cellOf(exit));
+    }
+    return solvable;
+  }
+
+  /**  Gets the position of the entrance in the packed grid
+  *    @throws java.lang.ArithmeticException if the index does not fit in an int
+  *    @return Returns the index of the entrance, or -1 if its cell was written over
+  *    through getTiles()
+  */
+  public int getEntranceIndex() {
+    return Math.toIntExact(cellOf(entrance));
+  }
+
+  /**  Gets the position of the exit in the packed grid
+  *    @throws java.lang.ArithmeticException if the index does not fit in an int
+  *    @return Returns the index of the exit, or -1 if its cell was written over
+  *    through getTiles()
+  */
+  public int getExitIndex() {
+    return Math.toIntExact(cellOf(exit));
+  }
+
+
 
   private void setEntrance(Tile tile) {
-    boolean inMaze = false;
-    if (entrance != null) {
+    if (entrance != null && entrance != tile) {
       throw new MultipleEntranceException();
 
     } else {
-      for (int i=0; i<tiles.size(); i++) {
-        if (tiles.get(i).contains(tile)) {
-          inMaze = true;
-        }
-      }
-
-      if (tile.getType() == Tile.Type.ENTRANCE && inMaze == true) {
+      if (tile.getType() == Tile.Type.ENTRANCE && cellOf(tile) != -1) {
         entrance = tile;
       }
     }
@@ -155,18 +818,11 @@ public class Maze implements Serializable{
 
 
   private void setExit(Tile tile) {
-    boolean inMaze = false;
-    if (exit != null) {
+    if (exit != null && exit != tile) {
       throw new MultipleExitException();
 
     } else {
-      for (int i=0; i<tiles.size(); i++) {
-        if (tiles.get(i).contains(tile)) {
-          inMaze = true;
-        }
-      }
-
-      if (tile.getType() == Tile.Type.EXIT && inMaze == true) {
+      if (tile.getType() == Tile.Type.EXIT && cellOf(tile) != -1) {
         exit = tile;
       }
     }
@@ -177,10 +833,11 @@ public class Maze implements Serializable{
   *    @return Returns retrieved Tile object
   */
   public Tile getTileAtLocation(Coordinate coordinate) {
-    int x = coordinate.getX();
-    int y = coordinate.getY();
-    y = (tiles.size()-1) - y;
-    Tile tile = tiles.get(y).get(x);
+    long index = indexAt((long) coordinate.getX(), (long) coordinate.getY());
+    if (index == -1) {
+      throw new IndexOutOfBoundsException("No tile at " + coordinate);
+    }
+    Tile tile = tileAt(index);
     return tile;
   }
 
@@ -190,51 +847,141 @@ public class Maze implements Serializable{
   */
   public Coordinate getTileLocation(Tile tile) {
     Coordinate coordinate = null;
+    long index = cellOf(tile);
 
-
-    for (int i=0; i<tiles.size(); i++) {
-      int y = (tiles.size()-1) - i;
-      for (int j=0; j<tiles.get(0).size(); j++) {
-        if (tiles.get(i).get(j) == tile) {
-          coordinate = new Coordinate(j, y);
-        }
-      }
+    if (index != -1) {
+      coordinate = new Coordinate(xOf(index), yOf(index));
     }
     return coordinate;
   }
 
+  /**  Finds the position in the packed grid of a Tile handed out by this maze. Tiles
+  *    created by the maze carry their own index, so this is a single lookup
+  *    @param tile: Tile to look for
+  *    @throws java.lang.IllegalArgumentException if the tile is not part of this maze
+  *    @throws java.lang.ArithmeticException if the index does not fit in an int
+  *    @return Returns the index of the tile
+  */
+  public int getTileIndex(Tile tile) {
+    return Math.toIntExact(requireCell(tile));
+  }
+
+  private long requireCell(Tile tile) {
+    long index = cellOf(tile);
+    if (index == -1) {
+      throw new IllegalArgumentException("Tile is not part of this maze");
+    }
+    return index;
+  }
+
+  private long cellOf(Tile tile) {
+    if (tile == null) {
+      return -1;
+    }
+    return tileCache.indexOf(tile);
+  }
+
   /**  Visualises Maze object
   *    @return Returns a string representation of the maze structure
   */
   public String toString() {
 
-    String mazeString = "";
-    int gridNumber = 0;
-    String bottomAxis = "";
+    StringBuilder mazeString = new StringBuilder();
+    StringBuilder bottomAxis = new StringBuilder();
 
 
-    for (int i=0; i < tiles.size(); i++) {
-      String line = "";
-      List<Tile> innerList = tiles.get(i);
+    for (int i=0; i < height; i++) {
+      mazeString.append(i).append(" ");
 
-      for (int j=0; j<innerList.size(); j++) {
-        if (j == 0) {
-          line =  String.valueOf(gridNumber) + "  " + (innerList.get(j).toString());
-        } else {
-          line = line + " " + (innerList.get(j).toString());
-        }
+      for (int j=0; j<width; j++) {
+        mazeString.append(" ").append(typeAt((long) i*width + j).getSymbol());
       }
-      gridNumber = gridNumber + 1;
-      line = line + "\n";
-      mazeString = mazeString + line;
+      mazeString.append("\n");
     }
 
-    for (int i=0; i<tiles.get(0).size(); i++){
-      bottomAxis = bottomAxis + String.valueOf(i) + " ";
+    for (int i=0; i<width; i++){
+      bottomAxis.append(i).append(" ");
     }
 
-    mazeString = mazeString + "\n" + "   " + bottomAxis + "\n";
-    return mazeString;
+    mazeString.append("\n").append("   ").append(bottomAxis).append("\n");
+    return mazeString.toString();
+  }
+
+
+  /**  Gets the store holding the cells of the maze
+  *    @return Returns the CellStore of the maze
+  */
+  CellStore getCellStore() {
+    return store;
+  }
+
+  /**  Gets the Tile object standing for a cell, creating it the first time it is asked for
+  *    @param index: position of the cell in the packed grid
+  *    @return Returns the Tile object for the cell
+  */
+  public Tile tileAt(long index) {
+    Tile tile = tileCache.get(index);
+    if (tile == null) {
+      tile = tileCache.add(index, typeAt(index));
+    }
+    return tile;
+  }
+
+  /**  Compatibility view of the packed grid as a list of rows  */
+  private class TileRows extends AbstractList<List<Tile>> implements Serializable {
+
+    public List<Tile> get(int row) {
+      if (row < 0 || row >= height) {
+        throw new IndexOutOfBoundsException("No row " + row);
+      }
+      return new TileRow(row);
+    }
+
+    public int size() {
+      return height;
+    }
+  }
+
+  /**  Compatibility view of a single row of the packed grid  */
+  private class TileRow extends AbstractList<Tile> implements Serializable {
+    private int row;
+
+    private TileRow(int rowNumber) {
+      row = rowNumber;
+    }
+
+    public Tile get(int column) {
+      if (column < 0 || column >= width) {
+        throw new IndexOutOfBoundsException("No column " + column);
+      }
+      return tileAt((long) row*width + column);
+    }
+
+    /**  Replaces the tile in a cell, writing its Type through to the packed grid.
+    *    Replacing the entrance or exit cell with another kind of tile leaves the maze
+    *    without one, and an entrance or exit tile written while the maze has none
+    *    becomes it. A maze that already has an entrance or exit elsewhere keeps it.
+    *    Throws UnsupportedOperationException if the maze is read only
+    */
+    public Tile set(int column, Tile tile) {
+      Tile previous = get(column);
+      long index = (long) row*width + column;
+      store.set(index, (byte) tile.getType().ordinal());
+      tileCache.place(index, tile);
+      solvable = null;
+
+      if (previous == entrance || (entrance == null && tile.getType() == Tile.Type.ENTRANCE)) {
+        entrance = tile.getType() == Tile.Type.ENTRANCE ? tile : null;
+      }
+      if (previous == exit || (exit == null && tile.getType() == Tile.Type.EXIT)) {
+        exit = tile.getType() == Tile.Type.EXIT ? tile : null;
+      }
+      return previous;
+    }
+
+    public int size() {
+      return width;
+    }
   }
 
 
@@ -280,16 +1027,38 @@ public class Maze implements Serializable{
   /**  Inner enum class containing Directions that can be used  */
   public enum Direction {
     /** North direction */
-    NORTH,
+    NORTH(0, 1),
 
     /** South direction */
-    SOUTH,
+    SOUTH(0, -1),
 
     /** East direction */
-    EAST,
+    EAST(1, 0),
 
     /** West direction */
-    WEST;
+    WEST(-1, 0);
+
+    private final int dx;
+    private final int dy;
+
+    private Direction(int xStep, int yStep) {
+      dx = xStep;
+      dy = yStep;
+    }
+
+    /**  Gets the change in x value when moving one tile in this direction
+    *    @return Returns -1, 0 or 1
+    */
+    public int getDx() {
+      return dx;
+    }
+
+    /**  Gets the change in y value when moving one tile in this direction
+    *    @return Returns -1, 0 or 1
+    */
+    public int getDy() {
+      return dy;
+    }
   }
 
 
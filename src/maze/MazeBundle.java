@@ -0,0 +1,188 @@
+package maze;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**  Many mazes stored in one file. Each maze is kept in the binary maze format, one
+*    after the other, and an index of where each maze starts is written at the end of
+*    the file. The bundle is memory-mapped when opened, so any maze can be read without
+*    reading the ones before it
+*    @author Ashreen Kaur
+*/
+public class MazeBundle implements Closeable {
+
+  private static final int BUNDLE_MAGIC = 0x4d5a424e;
+  private static final int HEADER_SIZE = 8;
+  private static final int TRAILER_SIZE = 16;
+
+  private String file;
+  private int count;
+  private long indexOffset;
+  private MappedByteBuffer index;
+  private MappedByteBuffer mazes;
+  private boolean closed;
+
+  private MazeBundle(String bundleFile) {
+    file = bundleFile;
+  }
+
+  /**  Opens a bundle file written by a MazeBundle.Writer. Only the index is read
+  *    @param bundleFile: the bundle file to open
+  *    @throws java.io.IOException if the file cannot be mapped
+  *    @throws maze.InvalidMazeException if the file is not a complete bundle
+  *    @return Returns the opened bundle
+  */
+  public static MazeBundle open(String bundleFile) throws IOException {
+    MazeBundle bundle = new MazeBundle(bundleFile);
+    try (FileChannel channel = FileChannel.open(Paths.get(bundleFile), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE + TRAILER_SIZE) {
+        throw new InvalidMazeException();
+      }
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_SIZE, TRAILER_SIZE);
+      bundle.indexOffset = trailer.getLong();
+      bundle.count = trailer.getInt();
+      if (header.getInt() != BUNDLE_MAGIC || trailer.getInt() != BUNDLE_MAGIC || bundle.count < 0
+          || bundle.indexOffset < HEADER_SIZE
+          || bundle.indexOffset + 8L * bundle.count != size - TRAILER_SIZE) {
+        throw new InvalidMazeException();
+      }
+
+      bundle.index = channel.map(FileChannel.MapMode.READ_ONLY, bundle.indexOffset, 8L * bundle.count);
+      if (bundle.indexOffset <= Integer.MAX_VALUE) {
+        bundle.mazes = channel.map(FileChannel.MapMode.READ_ONLY, 0, bundle.indexOffset);
+      }
+    }
+    return bundle;
+  }
+
+  /**  Gets the number of mazes in the bundle
+  *    @throws java.lang.IllegalStateException if the bundle is closed
+  *    @return Returns the number of mazes
+  */
+  public int size() {
+    checkOpen();
+    return count;
+  }
+
+  /**  Reads one maze out of the bundle. Only the bytes of that maze are touched
+  *    @param n: position of the maze in the bundle, from 0
+  *    @throws java.io.IOException if the maze cannot be read
+  *    @throws java.lang.IndexOutOfBoundsException if there is no maze at that position
+  *    @throws java.lang.IllegalStateException if the bundle is closed
+  *    @throws maze.InvalidMazeException if the maze is incomplete or fails its checksum
+  *    @return Returns a Maze object holding the maze
+  */
+  public Maze get(int n) throws IOException {
+    checkOpen();
+    if (n < 0 || n >= count) {
+      throw new IndexOutOfBoundsException("No maze " + n + " in a bundle of " + count);
+    }
+    long start = index.getLong(n * 8);
+    long end = indexOffset;
+    if (n + 1 < count) {
+      end = index.getLong((n + 1) * 8);
+    }
+    if (start < HEADER_SIZE || end < start || end > indexOffset) {
+      throw new InvalidMazeException();
+    }
+
+    ByteBuffer record;
+    if (mazes != null) {
+      record = mazes.duplicate();
+      record.limit((int) end);
+      record.position((int) start);
+    } else {
+      // bundles over 2GB cannot be mapped in one go, so map just this maze
+      try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+        record = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+      }
+    }
+    return Maze.readBinary(record.slice());
+  }
+
+  /**  Releases the bundle. The mappings themselves are freed by the garbage collector.
+  *    Closing a bundle that is already closed does nothing
+  */
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    index = null;
+    mazes = null;
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Bundle is closed");
+    }
+  }
+
+  /**  Writes mazes one at a time into a new bundle file. The index is written when the
+  *    writer is closed
+  *    @author Ashreen Kaur
+  */
+  public static class Writer implements Closeable {
+
+    private DataOutputStream out;
+    private long position;
+    private long[] offsets;
+    private int count;
+
+    /**  Constructor to create a Writer
+    *    @param bundleFile: name of the bundle file to write
+    *    @throws java.io.IOException if the file cannot be created
+    */
+    public Writer(String bundleFile) throws IOException {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bundleFile), 1 << 16));
+      offsets = new long[16];
+      out.writeInt(BUNDLE_MAGIC);
+      out.writeInt(0);
+      position = HEADER_SIZE;
+    }
+
+    /**  Appends a maze to the bundle
+    *    @param maze: the maze to append
+    *    @throws java.io.IOException if the file cannot be written
+    *    @return Returns the position of the maze in the bundle
+    */
+    public int add(Maze maze) throws IOException {
+      if (count == offsets.length) {
+        long[] grown = new long[count * 2];
+        System.arraycopy(offsets, 0, grown, 0, count);
+        offsets = grown;
+      }
+      offsets[count] = position;
+      position = position + maze.writeBinary(out);
+      count = count + 1;
+      return count - 1;
+    }
+
+    /**  Writes the index and closes the file
+    *    @throws java.io.IOException if the file cannot be written
+    */
+    public void close() throws IOException {
+      if (out == null) {
+        return;
+      }
+      for (int i=0; i<count; i++) {
+        out.writeLong(offsets[i]);
+      }
+      out.writeLong(position);
+      out.writeInt(count);
+      out.writeInt(BUNDLE_MAGIC);
+      out.close();
+      out = null;
+    }
+  }
+}
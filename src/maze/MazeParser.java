@@ -0,0 +1,159 @@
+package maze;
+
+import java.nio.ByteBuffer;
+
+/**  Byte level parser for maze text. Bytes are fed in as they are read and each cell
+*    is written straight into an ArrayCellStore, with rows checked for width as soon as
+*    they end and the entrance and exit picked up on the way
+*    @author Ashreen Kaur
+*/
+class MazeParser {
+
+  static final byte INVALID = -1;
+  private static final byte LINE_FEED = -2;
+  private static final byte CARRIAGE_RETURN = -3;
+  private static final byte[] CODES = new byte[256];
+
+  static {
+    for (int i=0; i<CODES.length; i++) {
+      CODES[i] = INVALID;
+    }
+    for (Tile.Type type : Tile.Type.values()) {
+      CODES[type.getSymbol()] = (byte) type.ordinal();
+    }
+    CODES['\n'] = LINE_FEED;
+    CODES['\r'] = CARRIAGE_RETURN;
+  }
+
+  /**  Maps a byte of maze text onto the Tile.Type ordinal it stands for
+  *    @param b: the byte to map
+  *    @return Returns the ordinal, or a negative number for a line break or invalid byte
+  */
+  static byte codeOf(byte b) {
+    return CODES[b & 0xff];
+  }
+
+  private ArrayCellStore cells;
+  private int width;
+  private int height;
+  private int column;
+  private int size;
+  private int entranceIndex;
+  private int exitIndex;
+  private boolean afterCarriageReturn;
+
+  /**  Constructor to create a MazeParser
+  *    @param capacity: expected number of cells, used to size the store up front
+  */
+  MazeParser(int capacity) {
+    cells = new ArrayCellStore(capacity);
+    width = -1;
+    entranceIndex = -1;
+    exitIndex = -1;
+  }
+
+  /**  Parses the remaining bytes of a buffer
+  *    @param buffer: bytes of maze text, read from its position to its limit
+  *    @throws maze.InvalidMazeException if an invalid character is found
+  *    @throws maze.RaggedMazeException if a row is a different width to the first row
+  *    @throws maze.MultipleEntranceException if a second entrance is found
+  *    @throws maze.MultipleExitException if a second exit is found
+  */
+  void parse(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      int start = buffer.arrayOffset() + buffer.position();
+      parse(buffer.array(), start, start + buffer.remaining());
+      buffer.position(buffer.limit());
+    } else {
+      byte[] bytes = new byte[Math.min(buffer.remaining(), 1 << 16)];
+      while (buffer.hasRemaining()) {
+        int length = Math.min(bytes.length, buffer.remaining());
+        buffer.get(bytes, 0, length);
+        parse(bytes, 0, length);
+      }
+    }
+  }
+
+  /**  Parses a range of bytes
+  *    @param bytes: array holding maze text
+  *    @param from: first byte to parse
+  *    @param to: one past the last byte to parse
+  */
+  void parse(byte[] bytes, int from, int to) {
+    cells.ensureCapacity(size + (to - from));
+
+    for (int i=from; i<to; i++) {
+      byte code = CODES[bytes[i] & 0xff];
+
+      if (code >= 0) {
+        cells.set(size, code);
+        if (code == Tile.Type.ENTRANCE.ordinal()) {
+          if (entranceIndex != -1) {
+            throw new MultipleEntranceException();
+          }
+          entranceIndex = size;
+        } else if (code == Tile.Type.EXIT.ordinal()) {
+          if (exitIndex != -1) {
+            throw new MultipleExitException();
+          }
+          exitIndex = size;
+        }
+        size = size + 1;
+        column = column + 1;
+        afterCarriageReturn = false;
+
+      } else if (code == LINE_FEED) {
+        if (afterCarriageReturn == false) {
+          endRow();
+        }
+        afterCarriageReturn = false;
+
+      } else if (code == CARRIAGE_RETURN) {
+        endRow();
+        afterCarriageReturn = true;
+
+      } else {
+        throw new InvalidMazeException();
+      }
+    }
+  }
+
+  /**  Ends the last row if the text did not finish with a line break
+  *    @throws maze.RaggedMazeException if the last row is a different width to the first row
+  */
+  void finish() {
+    if (column > 0) {
+      endRow();
+    }
+  }
+
+  private void endRow() {
+    if (height == 0) {
+      width = column;
+    } else if (column != width) {
+      throw new RaggedMazeException();
+    }
+    height = height + 1;
+    column = 0;
+  }
+
+  ArrayCellStore getCells() {
+    return cells;
+  }
+
+  int getWidth() {
+    return Math.max(width, 0);
+  }
+
+  int getHeight() {
+    return height;
+  }
+
+  int getEntranceIndex() {
+    return entranceIndex;
+  }
+
+  int getExitIndex() {
+    return exitIndex;
+  }
+}
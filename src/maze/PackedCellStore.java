@@ -0,0 +1,39 @@
+package maze;
+
+/**  Cell store keeping the grid on the heap at two bits per cell, four cells to a byte.
+*    This is the layout used by binary maze files, so they load with a single bulk read
+*    @author Ashreen Kaur
+*/
+class PackedCellStore implements CellStore {
+
+  private byte[] packed;
+
+  /**  Constructor to create a PackedCellStore around packed cells
+  *    @param packedCells: cells packed four to a byte, lowest bits first
+  */
+  PackedCellStore(byte[] packedCells) {
+    packed = packedCells;
+  }
+
+  /**  Gets the number of bytes needed to pack a number of cells
+  *    @param cellCount: number of cells
+  *    @return Returns the packed size in bytes
+  */
+  static int packedSize(int cellCount) {
+    return (int) (((long) cellCount + 3) / 4);
+  }
+
+  public byte get(long index) {
+    return (byte) ((packed[(int) (index >>> 2)] >>> ((int) (index & 3) << 1)) & 3);
+  }
+
+  public synchronized void set(long index, byte cell) {
+    int position = (int) (index >>> 2);
+    int shift = (int) (index & 3) << 1;
+    packed[position] = (byte) ((packed[position] & ~(3 << shift)) | ((cell & 3) << shift));
+  }
+
+  byte[] getPacked() {
+    return packed;
+  }
+}
@@ -0,0 +1,244 @@
+package maze;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**  Parses a memory-mapped maze text file on a fork-join pool. Every row of a well
+*    formed file takes the same number of bytes, so the file is split into runs of
+*    whole rows that are parsed side by side into one shared grid. Each run reports the
+*    first entrances and exits it saw and its first defect, and these are merged once
+*    all runs are done
+*    @author Ashreen Kaur
+*/
+class ParallelMazeParser {
+
+  private static final int ROWS_BYTES_PER_TASK = 1 << 20;
+  private static final long NO_ERROR = Long.MAX_VALUE;
+
+  private FileChannel channel;
+  private long fileSize;
+  private int width;
+  private int height;
+  private int stride;
+  private ArrayCellStore cells;
+  private int entranceIndex;
+  private int exitIndex;
+
+  /**  Constructor to create a ParallelMazeParser
+  *    @param mazeChannel: open channel onto the maze text
+  *    @throws java.io.IOException if the size of the file cannot be read
+  */
+  ParallelMazeParser(FileChannel mazeChannel) throws IOException {
+    channel = mazeChannel;
+    fileSize = channel.size();
+  }
+
+  /**  Works out the row layout from the first line of the file
+  *    @return Returns false if the file does not split into rows of equal length, in
+  *    which case it should be parsed sequentially to find out what is wrong with it
+  */
+  boolean plan() throws IOException {
+    MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, 1 << 20));
+    int lineEnd = 0;
+    while (lineEnd < head.limit() && head.get(lineEnd) != '\n') {
+      lineEnd = lineEnd + 1;
+    }
+    if (lineEnd == head.limit()) {
+      return false;
+    }
+
+    width = lineEnd;
+    int terminator = 1;
+    if (lineEnd > 0 && head.get(lineEnd - 1) == '\r') {
+      width = lineEnd - 1;
+      terminator = 2;
+    }
+    if (width == 0) {
+      return false;
+    }
+    stride = width + terminator;
+
+    long rows;
+    if (fileSize % stride == 0) {
+      rows = fileSize / stride;
+    } else if ((fileSize + terminator) % stride == 0) {
+      rows = (fileSize + terminator) / stride;
+    } else {
+      return false;
+    }
+    if (rows * width > Integer.MAX_VALUE) {
+      return false;
+    }
+    height = (int) rows;
+    return true;
+  }
+
+  /**  Parses every row on the given pool. Each run stops at its first defect and
+  *    reports where in the file it was, and the defect nearest the start of the file
+  *    is the one reported, as the sequential parser would
+  *    @param pool: the pool to run the parse on
+  *    @return Returns false if a row turned out to be the wrong length before any
+  *    other defect
+  *    @throws maze.InvalidMazeException if an invalid character is found
+  *    @throws maze.MultipleEntranceException if there is more than one entrance
+  *    @throws maze.MultipleExitException if there is more than one exit
+  */
+  boolean parse(ForkJoinPool pool) {
+    cells = new ArrayCellStore(width * height);
+    Rows found = pool.invoke(new RowsTask(0, height));
+
+    long errorOffset = found.errorOffset;
+    RuntimeException error = found.error;
+    if (found.entrances[1] != -1 && offsetOf(found.entrances[1]) < errorOffset) {
+      errorOffset = offsetOf(found.entrances[1]);
+      error = new MultipleEntranceException();
+    }
+    if (found.exits[1] != -1 && offsetOf(found.exits[1]) < errorOffset) {
+      errorOffset = offsetOf(found.exits[1]);
+      error = new MultipleExitException();
+    }
+    if (errorOffset != NO_ERROR) {
+      if (error == null) {
+        return false;
+      }
+      throw error;
+    }
+    entranceIndex = found.entrances[0];
+    exitIndex = found.exits[0];
+    return true;
+  }
+
+  private long offsetOf(int index) {
+    return (long) (index / width) * stride + index % width;
+  }
+
+  ArrayCellStore getCells() {
+    return cells;
+  }
+
+  int getWidth() {
+    return width;
+  }
+
+  int getHeight() {
+    return height;
+  }
+
+  int getEntranceIndex() {
+    return entranceIndex;
+  }
+
+  int getExitIndex() {
+    return exitIndex;
+  }
+
+  /**  What a run of rows found: the first two entrances and exits, and the first
+  *    defect with its byte offset in the file. A defect with no error is a row of the
+  *    wrong length
+  */
+  private static class Rows {
+    private int[] entrances = new int[]{-1, -1};
+    private int[] exits = new int[]{-1, -1};
+    private long errorOffset = NO_ERROR;
+    private RuntimeException error;
+
+    // keeps the first two of the indexes of above, then below
+    private static int[] firstTwo(int[] above, int[] below) {
+      if (above[1] != -1 || below[0] == -1) {
+        return above;
+      }
+      return new int[]{above[0] == -1 ? below[0] : above[0], above[0] == -1 ? below[1] : below[0]};
+    }
+
+    // every byte of above comes before every byte of below
+    private static Rows merge(Rows above, Rows below) {
+      Rows both = new Rows();
+      both.entrances = firstTwo(above.entrances, below.entrances);
+      both.exits = firstTwo(above.exits, below.exits);
+      Rows first = above.errorOffset != NO_ERROR ? above : below;
+      both.errorOffset = first.errorOffset;
+      both.error = first.error;
+      return both;
+    }
+
+    private static void add(int[] found, int index) {
+      if (found[0] == -1) {
+        found[0] = index;
+      } else if (found[1] == -1) {
+        found[1] = index;
+      }
+    }
+  }
+
+  /**  Parses a run of rows, stopping at the first defect in it  */
+  private class RowsTask extends RecursiveTask<Rows> {
+    private int firstRow;
+    private int endRow;
+
+    private RowsTask(int first, int end) {
+      firstRow = first;
+      endRow = end;
+    }
+
+    protected Rows compute() {
+      if ((long) (endRow - firstRow) * stride > ROWS_BYTES_PER_TASK && endRow - firstRow > 1) {
+        int middle = (firstRow + endRow) >>> 1;
+        RowsTask top = new RowsTask(firstRow, middle);
+        RowsTask bottom = new RowsTask(middle, endRow);
+        top.fork();
+        Rows below = bottom.compute();
+        Rows above = top.join();
+        return Rows.merge(above, below);
+      }
+
+      try {
+        return parseRows();
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not map rows " + firstRow + " to " + endRow, e);
+      }
+    }
+
+    private Rows parseRows() throws IOException {
+      long start = (long) firstRow * stride;
+      long length = Math.min((long) (endRow - firstRow) * stride, fileSize - start);
+      MappedByteBuffer rows = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+      Rows found = new Rows();
+      int index = firstRow * width;
+
+      for (int row=firstRow; row<endRow; row++) {
+        int rowStart = (row - firstRow) * stride;
+        for (int column=0; column<width; column++) {
+          byte code = MazeParser.codeOf(rows.get(rowStart + column));
+          if (code < 0) {
+            found.errorOffset = start + rowStart + column;
+            if (code == MazeParser.INVALID) {
+              found.error = new InvalidMazeException();
+            }
+            return found;
+          }
+          cells.set(index, code);
+          if (code == Tile.Type.ENTRANCE.ordinal()) {
+            Rows.add(found.entrances, index);
+          } else if (code == Tile.Type.EXIT.ordinal()) {
+            Rows.add(found.exits, index);
+          }
+          index = index + 1;
+        }
+
+        int lineEnd = rowStart + stride - 1;
+        if (stride - width == 2 && lineEnd - 1 < length && rows.get(lineEnd - 1) != '\r') {
+          found.errorOffset = start + lineEnd - 1;
+          return found;
+        }
+        if (lineEnd < length && rows.get(lineEnd) != '\n') {
+          found.errorOffset = start + lineEnd;
+          return found;
+        }
+      }
+      return found;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package maze;
+
+import java.util.BitSet;
+
+/**  Cell store showing the cells of another store with some of them walled up. The
+*    cells underneath are shared rather than copied
+*    @author Ashreen Kaur
+*/
+class PrunedCellStore implements CellStore {
+
+  private static final byte WALL = (byte) Tile.Type.WALL.ordinal();
+
+  private CellStore cells;
+  private BitSet walled;
+
+  /**  Constructor to create a PrunedCellStore
+  *    @param base: the store holding the cells
+  *    @param walledCells: the cells to show as walls
+  */
+  PrunedCellStore(CellStore base, BitSet walledCells) {
+    cells = base;
+    walled = walledCells;
+  }
+
+  public byte get(long index) {
+    if (walled.get((int) index)) {
+      return WALL;
+    }
+    return cells.get(index);
+  }
+
+  public void set(long index, byte cell) {
+    throw new UnsupportedOperationException("Pruned mazes are read only");
+  }
+}
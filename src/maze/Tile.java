@@ -2,18 +2,26 @@ package maze;
 
 import java.io.Serializable;
 
-/**  Class to create Tile objects
+/**  Class to create Tile objects. Tiles cannot be changed once created; the state of
+*    a search over them is kept by the solver
 *    @author Ashreen Kaur
 */
 public class Tile implements Serializable{
-  private Type type;
-  private boolean isDeadEnd;
-  private boolean alreadyVisited;
+  private final Type type;
+  private final long index;
 
 
   private Tile(Type tileType) {
-    alreadyVisited = false;
+    this(tileType, -1);
+  }
+
+  /**  Creates a Tile that knows which cell of its maze it stands for
+  *    @param tileType: Type of the tile
+  *    @param cellIndex: position of the cell in the packed grid of its maze, or -1 if unknown
+  */
+  Tile(Type tileType, long cellIndex) {
     type = tileType;
+    index = cellIndex;
   }
 
   /**  Creates Tile object with input char
@@ -22,19 +30,28 @@ public class Tile implements Serializable{
   *    @return Returns Tile object with a set Type attribute
   */
   protected static Tile fromChar(char c) {
-    Tile newTile;
+    return new Tile(typeOf(c));
+  }
+
+  /**  Maps a maze file character onto the Type it represents
+  *    @param c: a char value read from a maze file
+  *    @throws maze.InvalidMazeException when invalid character is in maze file
+  *    @return Returns the Type the character stands for
+  */
+  static Type typeOf(char c) {
+    Type tileType;
     if (c == '.') {
-      newTile = new Tile(Type.CORRIDOR);
+      tileType = Type.CORRIDOR;
     } else if (c == 'e') {
-      newTile = new Tile(Type.ENTRANCE);
+      tileType = Type.ENTRANCE;
     } else if (c == 'x') {
-      newTile = new Tile(Type.EXIT);
+      tileType = Type.EXIT;
     } else if (c == '#'){
-      newTile = new Tile(Type.WALL);
+      tileType = Type.WALL;
     } else {
       throw new InvalidMazeException();
     }
-    return newTile;
+    return tileType;
   }
 
 
@@ -45,6 +62,13 @@ public class Tile implements Serializable{
     return type;
   }
 
+  /**  Gets the position of the Tile in the packed grid of the maze that created it
+  *    @return Returns the cell index, or -1 if the tile was not created by a maze
+  */
+  long getIndex() {
+    return index;
+  }
+
   /**  Checks if a Tile object is Navigable (only Type WALL is not navigable)
   *    @return true if Tile object is navigable, and false if it is not navigable
   */
@@ -56,66 +80,39 @@ public class Tile implements Serializable{
     }
   }
 
-  /**  Checks if a Tile is a dead end Tile with respect to a particular maze structure
-  *    @return true if Tile object is a dead end, and false if it is not a dead end
-  */
-  public boolean isDeadEnd() {
-    return isDeadEnd;
-  }
-
-  /**  Sets a boolean value to the attribute isDeadEnd
-  *    @param b indicates if the tile is a dead end
-  */
-  public void setDeadEnd(boolean b) {
-    isDeadEnd = b;
-  }
-
-  /**  Checks if a Tile has already been visited
-  *    @return true if Tile object has been visited, and false if it has not been visited
-  */
-  public boolean alreadyVisited() {
-    return alreadyVisited;
-  }
-
-  /**  Sets a boolean value to the attribute alreadyVisited
-  *    @param b indicates if the tile has already been visited
-  */
-  public void setVisited(boolean b) {
-    alreadyVisited = b;
-  }
-
-
   /**  Displays String representation of Tile object
   *    @return Returns String representation of tile object
   */
   public String toString() {
-    String tileString;
-
-    if (type == Type.CORRIDOR) {
-      tileString = ".";
-    } else if (type == Type.ENTRANCE) {
-      tileString = "e";
-    } else if (type == Type.EXIT) {
-      tileString = "x";
-    } else {
-      tileString = "#";
-    }
-    return tileString;
+    return String.valueOf(type.getSymbol());
   }
 
   /**  Inner enum class containing Types that can be used  */
   public enum Type {
 
     /** Corridor type */
-    CORRIDOR,
+    CORRIDOR('.'),
 
     /** Entrance type */
-    ENTRANCE,
+    ENTRANCE('e'),
 
     /** Exit type */
-    EXIT,
+    EXIT('x'),
 
     /** Wall type */
-    WALL;
+    WALL('#');
+
+    private final char symbol;
+
+    private Type(char typeSymbol) {
+      symbol = typeSymbol;
+    }
+
+    /**  Gets the character used for this Type in maze files
+    *    @return Returns the character standing for this Type
+    */
+    public char getSymbol() {
+      return symbol;
+    }
   }
 }
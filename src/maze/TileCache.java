@@ -0,0 +1,165 @@
+package maze;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**  The Tile objects a maze has handed out, found by cell index without boxing it.
+*    Tiles made by the maze carry their own index, so they are kept in a single open
+*    addressed array probed by that index, and a lookup that finds its tile takes no
+*    lock. Changes are made under the lock and a grown array is published through a
+*    volatile field, so a reader sees either the old array or the whole new one; a
+*    reader that misses goes to the locked path, which is always up to date.
+*    Tiles placed into the grid through Maze.getTiles() were made elsewhere, so their
+*    index says nothing about where they sit. The few of those are kept in ordinary
+*    maps on the side
+*    @author Ashreen Kaur
+*/
+class TileCache implements Serializable {
+
+  private volatile Tile[] table;
+  private int size;
+  private Map<Long, Tile> placedCells;
+  private IdentityHashMap<Tile, Long> placedTiles;
+
+  /**  Constructor to create an empty TileCache  */
+  TileCache() {
+    table = new Tile[16];
+    placedCells = new HashMap<Long, Tile>();
+    placedTiles = new IdentityHashMap<Tile, Long>();
+  }
+
+  /**  Gets the tile the maze made for a cell, without taking the lock
+  *    @param index: position of the cell in the packed grid
+  *    @return Returns the Tile, or null if none was made yet or a tile placed through
+  *    getTiles() sits in the cell
+  */
+  Tile get(long index) {
+    return probe(table, index);
+  }
+
+  /**  Gets the tile standing for a cell, making one of the given Type if the cell
+  *    has none yet
+  *    @param index: position of the cell in the packed grid
+  *    @param type: Type of the cell
+  *    @return Returns the Tile for the cell
+  */
+  synchronized Tile add(long index, Tile.Type type) {
+    Tile tile = probe(table, index);
+    if (tile == null) {
+      tile = placedCells.isEmpty() ? null : placedCells.get(index);
+    }
+    if (tile == null) {
+      tile = new Tile(type, index);
+      insert(tile);
+    }
+    return tile;
+  }
+
+  /**  Puts a tile into a cell, in place of whatever tile stood for it
+  *    @param index: position of the cell in the packed grid
+  *    @param tile: the Tile now standing for the cell
+  */
+  synchronized void place(long index, Tile tile) {
+    remove(index);
+    if (tile.getIndex() == index) {
+      insert(tile);
+    } else {
+      placedCells.put(index, tile);
+      placedTiles.put(tile, index);
+    }
+  }
+
+  /**  Forgets the tile of a cell, so the next lookup makes a new one
+  *    @param index: position of the cell in the packed grid
+  */
+  synchronized void remove(long index) {
+    if (placedCells.isEmpty() == false) {
+      Tile placed = placedCells.remove(index);
+      if (placed != null) {
+        placedTiles.remove(placed);
+      }
+    }
+
+    Tile[] tiles = table;
+    int mask = tiles.length - 1;
+    int hole = slotOf(tiles, index);
+    if (tiles[hole] == null) {
+      return;
+    }
+    // shifts later tiles of the same run back, so no probe stops short of them
+    tiles[hole] = null;
+    size = size - 1;
+    for (int next = (hole + 1) & mask; tiles[next] != null; next = (next + 1) & mask) {
+      int home = hash(tiles[next].getIndex(), mask);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        tiles[hole] = tiles[next];
+        tiles[next] = null;
+        hole = next;
+      }
+    }
+  }
+
+  /**  Finds the cell a tile stands for
+  *    @param tile: Tile to look for
+  *    @return Returns the index of the cell, or -1 if the tile stands for no cell
+  */
+  long indexOf(Tile tile) {
+    long index = tile.getIndex();
+    if (index != -1 && probe(table, index) == tile) {
+      return index;
+    }
+    synchronized (this) {
+      if (index != -1 && probe(table, index) == tile) {
+        return index;
+      }
+      Long placed = placedTiles.get(tile);
+      return placed == null ? -1 : placed;
+    }
+  }
+
+  private void insert(Tile tile) {
+    Tile[] tiles = table;
+    if ((size + 1) * 2 > tiles.length) {
+      Tile[] grown = new Tile[tiles.length * 2];
+      for (Tile kept : tiles) {
+        if (kept != null) {
+          grown[slotOf(grown, kept.getIndex())] = kept;
+        }
+      }
+      table = grown;
+      tiles = grown;
+    }
+    tiles[slotOf(tiles, tile.getIndex())] = tile;
+    size = size + 1;
+  }
+
+  // reads each slot once, as a locked writer may be moving tiles meanwhile
+  private static Tile probe(Tile[] tiles, long index) {
+    int mask = tiles.length - 1;
+    int slot = hash(index, mask);
+    for (int probes = 0; probes < tiles.length; probes++) {
+      Tile tile = tiles[slot];
+      if (tile == null || tile.getIndex() == index) {
+        return tile;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  // the slot holding the tile of the cell, or the empty slot where it would go
+  private static int slotOf(Tile[] tiles, long index) {
+    int mask = tiles.length - 1;
+    int slot = hash(index, mask);
+    while (tiles[slot] != null && tiles[slot].getIndex() != index) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int hash(long index, int mask) {
+    return (int) ((index * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+  }
+}
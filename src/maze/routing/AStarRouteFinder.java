@@ -0,0 +1,234 @@
+package maze.routing;
+
+import maze.Maze;
+import maze.Tile;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**  Class to create AStarRouteFinder objects. Like BreadthFirstRouteFinder it finds a
+*    shortest route, but it searches the cells closest to the exit first, using the
+*    Manhattan distance to the exit as its guess of the distance left. In open mazes
+*    this expands far fewer cells than a breadth-first search.
+*    The cells waiting to be expanded are kept in an IntHeap, and the distance from
+*    the entrance of every cell in an int array
+*    @author Ashreen Kaur
+*/
+public class AStarRouteFinder implements Serializable {
+
+  private static final int SEEN = 4;
+  private static final int PARENT_SHIFT = 4;
+  private static final int PARENT_MASK = 3 << PARENT_SHIFT;
+  private static final int CLOSED = 64;
+
+  private Maze maze;
+  private PaddedGrid grid;
+  private byte[] cells;
+  private int[] offsets;
+  private int[] distances;
+  private IntHeap open;
+  private int entrance;
+  private int exitRow;
+  private int exitColumn;
+  private int current;
+  private boolean finished;
+  private long expanded;
+  private long visitedCount;
+
+  /**  Constructor to create AStarRouteFinder objects
+  *    @param mazeObj: the maze the AStarRouteFinder object will try to solve
+  */
+  public AStarRouteFinder(Maze mazeObj) {
+    maze = mazeObj;
+    grid = new PaddedGrid(maze);
+    cells = grid.cells;
+    offsets = grid.offsets();
+    distances = new int[cells.length];
+    open = new IntHeap(cells.length);
+
+    int exit = grid.padded(maze.getTileIndex(maze.getExit()));
+    exitRow = exit / grid.paddedWidth;
+    exitColumn = exit % grid.paddedWidth;
+
+    entrance = grid.padded(maze.getTileIndex(maze.getEntrance()));
+    cells[entrance] |= SEEN;
+    visitedCount = 1;
+    current = entrance;
+    open.push(entrance, key(entrance, 0));
+  }
+
+  private int estimate(int cell) {
+    return Math.abs(cell / grid.paddedWidth - exitRow) + Math.abs(cell % grid.paddedWidth - exitColumn);
+  }
+
+  // ordered by estimated route length, then by distance travelled with the
+  // furthest first, which stops ties from spreading out sideways
+  private long key(int cell, int distance) {
+    return (long) (distance + estimate(cell)) << 32 | (Integer.MAX_VALUE - distance);
+  }
+
+  /**  Gets Maze object
+  *    @return Returns Maze object we are trying to find a route for
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Returns a boolean value which tells us if the route is complete
+  *    @return Returns a boolean value, true if the exit has been reached and false if it has not
+  */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**  Checks if the search has reached a Tile yet
+  *    @param tile: Tile of the maze being solved
+  *    @return true if Tile object has been reached, and false if it has not
+  */
+  public boolean isVisited(Tile tile) {
+    return (cells[grid.padded(maze.getTileIndex(tile))] & SEEN) != 0;
+  }
+
+  /**  Gets the number of cells the search has expanded so far
+  *    @return Returns the expanded cell count
+  */
+  public long getExpanded() {
+    return expanded;
+  }
+
+  /**  Gets the route from the entrance to the cell expanded last. Once the search is
+  *    finished this is a shortest route to the exit
+  *    @return Returns a list of the Tiles on the route
+  */
+  public List<Tile> getRoute() {
+    int[] route = routeIndices();
+    List<Tile> routeList = new ArrayList<Tile>(route.length);
+    for (int index : route) {
+      routeList.add(maze.tileAt(index));
+    }
+    return routeList;
+  }
+
+  private int[] routeIndices() {
+    int[] route = new int[distances[current] + 1];
+    int cell = current;
+    for (int i=route.length-1; i>=0; i--) {
+      route[i] = grid.unpadded(cell);
+      if (i > 0) {
+        cell = cell - offsets[(cells[cell] & PARENT_MASK) >> PARENT_SHIFT];
+      }
+    }
+    return route;
+  }
+
+  /**  Reads an object file to retrive an AStarRouteFinder object
+  *    @param mazeFile: name of the object file we are reading from
+  *    @return Returns an AStarRouteFinder object read from the file
+  */
+  public static AStarRouteFinder load(String mazeFile) {
+    AStarRouteFinder rfObject = null;
+    try (ObjectInputStream objectInStream = new ObjectInputStream(new FileInputStream(mazeFile))) {
+      rfObject = (AStarRouteFinder) objectInStream.readObject();
+    } catch (FileNotFoundException e) {
+        System.out.println("Error: Could not read " + mazeFile);
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        System.out.println("Error: problem when reading "+ mazeFile);
+    }
+    return rfObject;
+  }
+
+  /**  Serializes current AStarRouteFinder object into a object file
+  *    @param outputFilename The name of the file the object is being serialized to.
+  */
+  public void save(String outputFilename) {
+    try (ObjectOutputStream objectOutStream = new ObjectOutputStream(new FileOutputStream(outputFilename))) {
+      objectOutStream.writeObject(this);
+    } catch (FileNotFoundException e) {
+      System.out.println("No file found");
+    } catch (IOException e) {
+      System.out.println("There was a problem reading the file");
+    }
+  }
+
+  /**  Expands the waiting cell with the shortest estimated route through it
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns true if the exit has been reached and false if it has not
+  */
+  public boolean step() {
+
+    if (finished == true) {
+      return finished;
+    }
+    if (open.isEmpty()) {
+      throw new NoRouteFoundException();
+    }
+
+    current = open.pop();
+    if (grid.isExit(current)) {
+      finished = true;
+      return true;
+    }
+    cells[current] |= CLOSED;
+    expanded = expanded + 1;
+
+    int distance = distances[current] + 1;
+    for (int direction=0; direction<4; direction++) {
+      int next = current + offsets[direction];
+      int cell = cells[next];
+      if ((cell & CLOSED) != 0 || (cell & PaddedGrid.TYPE_MASK) == PaddedGrid.WALL) {
+        continue;
+      }
+      if ((cell & SEEN) == 0 || distance < distances[next]) {
+        if ((cell & SEEN) == 0) {
+          visitedCount = visitedCount + 1;
+        }
+        cells[next] = (byte) ((cell & ~PARENT_MASK) | SEEN | direction << PARENT_SHIFT);
+        distances[next] = distance;
+        open.push(next, key(next, distance));
+      }
+    }
+    return false;
+  }
+
+  /**  Runs the search until it reaches the exit. The steps of the result are the
+  *    number of cells expanded
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns a shortest route and the statistics of the search
+  */
+  public SolveResult solve() {
+    long start = System.nanoTime();
+    while (step() == false) {
+      continue;
+    }
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, routeIndices(), finished, expanded, visitedCount, 0, elapsed);
+  }
+
+  /**  Visulaises current route solving state. Cells on the route to the cell expanded
+  *    last are drawn as *, and other cells the search has reached as -
+  *    @return a String of the current route solving state
+  */
+  public String toString() {
+    BitSet route = new BitSet(cells.length);
+    for (int index : routeIndices()) {
+      route.set(grid.padded(index));
+    }
+    return grid.render(cell -> {
+      if (route.get(cell) == true && grid.isExit(cell) == false) {
+        return '*';
+      } else if ((cells[cell] & SEEN) != 0 && grid.isExit(cell) == false) {
+        return '-';
+      }
+      return 0;
+    });
+  }
+
+}
@@ -0,0 +1,297 @@
+package maze.routing;
+
+import maze.Maze;
+import maze.Tile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**  Class to create BidirectionalRouteFinder objects. Two breadth-first searches run
+*    at once, one out from the entrance and one out from the exit, and the route is
+*    joined where they meet. Each search only has to cover about half the distance, so
+*    on long mazes far fewer cells are searched than by BreadthFirstRouteFinder, and
+*    the route found is still a shortest one.
+*    The searches can take turns on the calling thread, or run on two threads. Either
+*    way the shortest meeting found so far is kept in an AtomicLong, and each search
+*    stops once its layer and the other's layer add up to at least that length.
+*    On two threads the distances of one search are written while the other reads
+*    them, so a plain read can miss a cell the other search has labelled. Each search
+*    publishes the layer it has finished through a volatile field, and reads the
+*    other's before it expands a layer. Every label up to that layer was written
+*    before it was published, so those labels are certain to be seen, and only
+*    they are used to join the searches. A meeting on a shortest route is still
+*    found: of the two searches that each have to expand their side of it, the one
+*    that reads the other's layer second sees the other's side already published
+*    @author Ashreen Kaur
+*/
+public class BidirectionalRouteFinder {
+
+  private static final long NO_MEETING = Long.MAX_VALUE;
+
+  private Maze maze;
+  private PaddedGrid grid;
+  private int[] offsets;
+  private boolean parallel;
+  private Frontier forward;
+  private Frontier backward;
+  private AtomicLong meeting;
+  private volatile boolean stopped;
+  private boolean finished;
+  private int[] route;
+
+  /**  Contructor to create BidirectionalRouteFinder objects that search on the calling thread
+  *    @param mazeObj: the maze the BidirectionalRouteFinder object will try to solve
+  */
+  public BidirectionalRouteFinder(Maze mazeObj) {
+    this(mazeObj, false);
+  }
+
+  /**  Contructor to create BidirectionalRouteFinder objects
+  *    @param mazeObj: the maze the BidirectionalRouteFinder object will try to solve
+  *    @param twoThreads: true to run the search from the exit on a second thread
+  */
+  public BidirectionalRouteFinder(Maze mazeObj, boolean twoThreads) {
+    maze = mazeObj;
+    grid = new PaddedGrid(maze);
+    offsets = grid.offsets();
+    parallel = twoThreads;
+    meeting = new AtomicLong(NO_MEETING);
+    forward = new Frontier(grid.padded(maze.getTileIndex(maze.getEntrance())));
+    backward = new Frontier(grid.padded(maze.getTileIndex(maze.getExit())));
+    forward.other = backward;
+    backward.other = forward;
+  }
+
+  /**  Gets Maze object
+  *    @return Returns Maze object we are trying to find a route for
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Returns a boolean value which tells us if the route is complete
+  *    @return Returns a boolean value, true if a route has been found and false if it has not
+  */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**  Gets the route found by solve
+  *    @return Returns a list of the Tiles on the route, or an empty list before solve has run
+  */
+  public List<Tile> getRoute() {
+    List<Tile> routeList = new ArrayList<Tile>();
+    if (route != null) {
+      for (int index : route) {
+        routeList.add(maze.tileAt(index));
+      }
+    }
+    return routeList;
+  }
+
+  /**  Runs both searches until they have met on a shortest route
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns a shortest route and the statistics of the search
+  */
+  public SolveResult solve() {
+    long start = System.nanoTime();
+    if (finished == false) {
+      if (parallel == true) {
+        Thread exitSide = new Thread(backward::run, "maze-bidirectional-exit");
+        exitSide.start();
+        forward.run();
+        try {
+          exitSide.join();
+        } catch (InterruptedException e) {
+          stopped = true;
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while solving", e);
+        }
+      } else {
+        takeTurns();
+      }
+
+      if (meeting.get() == NO_MEETING) {
+        throw new NoRouteFoundException();
+      }
+      route = join();
+      finished = true;
+    }
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, route.clone(), finished, forward.expanded + backward.expanded,
+        forward.labelled + backward.labelled, 0, elapsed);
+  }
+
+  private void takeTurns() {
+    while (forward.size > 0 && backward.size > 0) {
+      Frontier smaller = forward;
+      if (backward.size < forward.size) {
+        smaller = backward;
+      }
+      smaller.expandLayer();
+      if (forward.level + backward.level >= (int) (meeting.get() >>> 32)) {
+        return;
+      }
+    }
+  }
+
+  private void offer(int length, int forwardCell) {
+    long candidate = (long) length << 32 | forwardCell;
+    long best = meeting.get();
+    while (length < (int) (best >>> 32)) {
+      if (meeting.compareAndSet(best, candidate)) {
+        return;
+      }
+      best = meeting.get();
+    }
+  }
+
+  private int[] join() {
+    long best = meeting.get();
+    int length = (int) (best >>> 32);
+    int cell = (int) best;
+    int[] indices = new int[length + 1];
+
+    // walk back to the entrance, then on from the meeting to the exit
+    int forwardSteps = forward.distances[cell] - 1;
+    for (int i=forwardSteps; i>=0; i--) {
+      indices[i] = grid.unpadded(cell);
+      cell = forward.closer(cell);
+    }
+    cell = (int) best;
+    for (int offset : offsets) {
+      int next = cell + offset;
+      if (backward.distances[next] - 1 == length - forwardSteps - 1) {
+        cell = next;
+        break;
+      }
+    }
+    for (int i=forwardSteps+1; i<=length; i++) {
+      indices[i] = grid.unpadded(cell);
+      cell = backward.closer(cell);
+    }
+    return indices;
+  }
+
+  /**  Visulaises the route found. Cells on the route are drawn as *, and other cells
+  *    either search has reached as -
+  *    @return a String of the current route solving state
+  */
+  public String toString() {
+    BitSet onRoute = new BitSet(grid.cells.length);
+    if (route != null) {
+      for (int index : route) {
+        onRoute.set(grid.padded(index));
+      }
+    }
+    return grid.render(cell -> {
+      if (grid.isExit(cell) == true) {
+        return 0;
+      } else if (onRoute.get(cell) == true) {
+        return '*';
+      } else if (forward.distances[cell] != 0 || backward.distances[cell] != 0) {
+        return '-';
+      }
+      return 0;
+    });
+  }
+
+  /**  One of the two breadth-first searches. Distances are stored one higher than they
+  *    are, so that 0 means a cell has not been reached
+  */
+  private class Frontier {
+
+    private int[] distances;
+    private int[] layer;
+    private int[] next;
+    private int size;
+    private int level;
+    private volatile int published;
+    private long expanded;
+    private long labelled;
+    private Frontier other;
+
+    private Frontier(int start) {
+      distances = new int[grid.cells.length];
+      layer = new int[64];
+      next = new int[64];
+      distances[start] = 1;
+      layer[0] = start;
+      size = 1;
+      labelled = 1;
+    }
+
+    private void run() {
+      while (stopped == false) {
+        if (size == 0) {
+          stopped = true;
+          return;
+        }
+        expandLayer();
+        int otherLevel = other.published;
+        if (level + otherLevel >= (int) (meeting.get() >>> 32)) {
+          stopped = true;
+          return;
+        }
+      }
+    }
+
+    private void expandLayer() {
+      byte[] cells = grid.cells;
+      int[] seen = distances;
+      int[] across = other.distances;
+      // labels past this layer may not be seen yet, so they are left alone
+      int covered = other.published;
+      int label = level + 2;
+      boolean fromEntrance = this == forward;
+      int nextSize = 0;
+      for (int i=0; i<size; i++) {
+        int cell = layer[i];
+        for (int offset : offsets) {
+          int neighbour = cell + offset;
+          if ((cells[neighbour] & PaddedGrid.TYPE_MASK) == PaddedGrid.WALL) {
+            continue;
+          }
+          if (seen[neighbour] == 0) {
+            seen[neighbour] = label;
+            if (nextSize == next.length) {
+              next = Arrays.copyOf(next, nextSize * 2);
+            }
+            next[nextSize] = neighbour;
+            nextSize = nextSize + 1;
+          }
+          int otherDistance = across[neighbour];
+          if (otherDistance != 0 && otherDistance - 1 <= covered) {
+            if (fromEntrance == true) {
+              offer(level + otherDistance, cell);
+            } else {
+              offer(level + otherDistance, neighbour);
+            }
+          }
+        }
+      }
+
+      expanded = expanded + size;
+      labelled = labelled + nextSize;
+      int[] swap = layer;
+      layer = next;
+      next = swap;
+      size = nextSize;
+      level = level + 1;
+      published = level;
+    }
+
+    private int closer(int cell) {
+      for (int offset : offsets) {
+        if (distances[cell + offset] == distances[cell] - 1 && distances[cell + offset] != 0) {
+          return cell + offset;
+        }
+      }
+      return cell;
+    }
+  }
+
+}
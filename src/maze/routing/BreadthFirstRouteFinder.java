@@ -0,0 +1,227 @@
+package maze.routing;
+
+import maze.Maze;
+import maze.Tile;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**  Class to create BreadthFirstRouteFinder objects. Unlike RouteFinder, which follows
+*    one corridor as far as it goes, this searches outwards from the entrance one layer
+*    at a time, so the route it finds to the exit is always a shortest one.
+*    Each cell of its PaddedGrid records whether it has been reached and the direction
+*    it was reached from, and the cells waiting to be searched are kept in a ring
+*    buffer of ints
+*    @author Ashreen Kaur
+*/
+public class BreadthFirstRouteFinder implements Serializable {
+
+  private static final int SEEN = 4;
+  private static final int PARENT_SHIFT = 4;
+  private static final int PARENT_MASK = 3 << PARENT_SHIFT;
+
+  private Maze maze;
+  private PaddedGrid grid;
+  private byte[] cells;
+  private int[] offsets;
+  private int[] queue;
+  private int head;
+  private int tail;
+  private int entrance;
+  private int current;
+  private boolean finished;
+  private long steps;
+  private long visitedCount;
+
+  /**  Constructor to create BreadthFirstRouteFinder objects
+  *    @param mazeObj: the maze the BreadthFirstRouteFinder object will try to solve
+  */
+  public BreadthFirstRouteFinder(Maze mazeObj) {
+    maze = mazeObj;
+    grid = new PaddedGrid(maze);
+    cells = grid.cells;
+    offsets = grid.offsets();
+    queue = new int[64];
+
+    entrance = grid.padded(maze.getTileIndex(maze.getEntrance()));
+    cells[entrance] |= SEEN;
+    visitedCount = 1;
+    current = entrance;
+    enqueue(entrance);
+  }
+
+  private void enqueue(int cell) {
+    if (tail - head == queue.length) {
+      int[] grown = new int[queue.length * 2];
+      for (int i=0; i<queue.length; i++) {
+        grown[i] = queue[(head + i) & (queue.length - 1)];
+      }
+      tail = queue.length;
+      head = 0;
+      queue = grown;
+    }
+    queue[tail & (queue.length - 1)] = cell;
+    tail = tail + 1;
+  }
+
+  /**  Gets Maze object
+  *    @return Returns Maze object we are trying to find a route for
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Returns a boolean value which tells us if the route is complete
+  *    @return Returns a boolean value, true if the exit has been reached and false if it has not
+  */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**  Checks if the search has reached a Tile yet
+  *    @param tile: Tile of the maze being solved
+  *    @return true if Tile object has been reached, and false if it has not
+  */
+  public boolean isVisited(Tile tile) {
+    return (cells[grid.padded(maze.getTileIndex(tile))] & SEEN) != 0;
+  }
+
+  /**  Gets the route from the entrance to the cell searched last. Once the search is
+  *    finished this is a shortest route to the exit
+  *    @return Returns a list of the Tiles on the route
+  */
+  public List<Tile> getRoute() {
+    int[] route = routeIndices();
+    List<Tile> routeList = new ArrayList<Tile>(route.length);
+    for (int index : route) {
+      routeList.add(maze.tileAt(index));
+    }
+    return routeList;
+  }
+
+  private int[] routeIndices() {
+    int length = 1;
+    for (int cell = current; cell != entrance; cell = parentOf(cell)) {
+      length = length + 1;
+    }
+    int[] route = new int[length];
+    int cell = current;
+    for (int i=length-1; i>=0; i--) {
+      route[i] = grid.unpadded(cell);
+      if (i > 0) {
+        cell = parentOf(cell);
+      }
+    }
+    return route;
+  }
+
+  private int parentOf(int cell) {
+    return cell - offsets[(cells[cell] & PARENT_MASK) >> PARENT_SHIFT];
+  }
+
+  /**  Reads an object file to retrive a BreadthFirstRouteFinder object
+  *    @param mazeFile: name of the object file we are reading from
+  *    @return Returns a BreadthFirstRouteFinder object read from the file
+  */
+  public static BreadthFirstRouteFinder load(String mazeFile) {
+    BreadthFirstRouteFinder rfObject = null;
+    try (ObjectInputStream objectInStream = new ObjectInputStream(new FileInputStream(mazeFile))) {
+      rfObject = (BreadthFirstRouteFinder) objectInStream.readObject();
+    } catch (FileNotFoundException e) {
+        System.out.println("Error: Could not read " + mazeFile);
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        System.out.println("Error: problem when reading "+ mazeFile);
+    }
+    return rfObject;
+  }
+
+  /**  Serializes current BreadthFirstRouteFinder object into a object file
+  *    @param outputFilename The name of the file the object is being serialized to.
+  */
+  public void save(String outputFilename) {
+    try (ObjectOutputStream objectOutStream = new ObjectOutputStream(new FileOutputStream(outputFilename))) {
+      objectOutStream.writeObject(this);
+    } catch (FileNotFoundException e) {
+      System.out.println("No file found");
+    } catch (IOException e) {
+      System.out.println("There was a problem reading the file");
+    }
+  }
+
+  /**  Searches the next cell waiting in the queue
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns true if the exit has been reached and false if it has not
+  */
+  public boolean step() {
+
+    if (finished == true) {
+      return finished;
+    }
+    if (head == tail) {
+      throw new NoRouteFoundException();
+    }
+
+    steps = steps + 1;
+    current = queue[head & (queue.length - 1)];
+    head = head + 1;
+
+    for (int direction=0; direction<4; direction++) {
+      int next = current + offsets[direction];
+      int cell = cells[next];
+      if ((cell & SEEN) != 0 || (cell & PaddedGrid.TYPE_MASK) == PaddedGrid.WALL) {
+        continue;
+      }
+
+      cells[next] = (byte) (cell | SEEN | direction << PARENT_SHIFT);
+      visitedCount = visitedCount + 1;
+      if ((cell & PaddedGrid.TYPE_MASK) == PaddedGrid.EXIT) {
+        current = next;
+        finished = true;
+        return true;
+      }
+      enqueue(next);
+    }
+    return false;
+  }
+
+  /**  Runs the search until it reaches the exit
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns a shortest route and the statistics of the search
+  */
+  public SolveResult solve() {
+    long start = System.nanoTime();
+    while (step() == false) {
+      continue;
+    }
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, routeIndices(), finished, steps, visitedCount, 0, elapsed);
+  }
+
+  /**  Visulaises current route solving state. Cells on the route to the cell searched
+  *    last are drawn as *, and other cells the search has reached as -
+  *    @return a String of the current route solving state
+  */
+  public String toString() {
+    BitSet route = new BitSet(cells.length);
+    for (int index : routeIndices()) {
+      route.set(grid.padded(index));
+    }
+    return grid.render(cell -> {
+      if (route.get(cell) == true && grid.isExit(cell) == false) {
+        return '*';
+      } else if ((cells[cell] & SEEN) != 0 && grid.isExit(cell) == false) {
+        return '-';
+      }
+      return 0;
+    });
+  }
+
+}
@@ -0,0 +1,276 @@
+package maze.routing;
+
+import maze.InvalidMazeException;
+import maze.Maze;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**  The way to the exit from every cell of a maze. One breadth-first search out from
+*    the exit records, for each cell it reaches, which neighbour is one step closer to
+*    the exit. A route to the exit from any cell is then found by following those
+*    steps, which only costs the length of the route, and the route is always a
+*    shortest one.
+*    The field takes one byte per cell. It is held on the heap when built, and can be
+*    saved to a field file and memory-mapped from it again later, so it is only built
+*    once for each maze. A mapped field is not read up front, so each step followed is
+*    checked as it is taken, and a route longer than the number of reached cells
+*    means the file was corrupted into a cycle
+*    @author Ashreen Kaur
+*/
+public class DistanceField {
+
+  private static final int MAGIC = 0x4d5a4446;
+  private static final int HEADER_SIZE = 32;
+  private static final byte UNREACHED = 0;
+  private static final byte AT_EXIT = 5;
+  private static final Maze.Direction[] DIRECTIONS = {
+    Maze.Direction.NORTH, Maze.Direction.EAST, Maze.Direction.SOUTH, Maze.Direction.WEST
+  };
+
+  private Maze maze;
+  private int width;
+  private int[] steps;
+  private ByteBuffer field;
+  private int reachedCount;
+
+  /**  Constructor to create a DistanceField, searching the whole maze out from its exit
+  *    @param mazeObj: the maze to build the field of
+  */
+  public DistanceField(Maze mazeObj) {
+    this(mazeObj, ByteBuffer.allocate(mazeObj.getWidth() * mazeObj.getHeight()));
+    searchFromExit();
+  }
+
+  private DistanceField(Maze mazeObj, ByteBuffer fieldBuffer) {
+    maze = mazeObj;
+    width = maze.getWidth();
+    steps = new int[]{-width, 1, width, -1};
+    field = fieldBuffer;
+  }
+
+  // each cell reached stores 1 plus the direction of the step back towards the exit,
+  // and is walled off in the grid so it is not reached again
+  private void searchFromExit() {
+    PaddedGrid grid = new PaddedGrid(maze);
+    byte[] cells = grid.cells;
+    int[] offsets = grid.offsets();
+    int[] queue = new int[64];
+    int head = 0;
+    int tail = 0;
+
+    int exit = grid.padded(maze.getExitIndex());
+    cells[exit] = (byte) PaddedGrid.WALL;
+    field.put(maze.getExitIndex(), AT_EXIT);
+    reachedCount = 1;
+    queue[0] = exit;
+    tail = 1;
+
+    while (head < tail) {
+      int cell = queue[head & (queue.length - 1)];
+      head = head + 1;
+      for (int direction=0; direction<4; direction++) {
+        int next = cell + offsets[direction];
+        if (cells[next] == PaddedGrid.WALL) {
+          continue;
+        }
+        cells[next] = (byte) PaddedGrid.WALL;
+        field.put(grid.unpadded(next), (byte) (1 + (direction + 2) % 4));
+        reachedCount = reachedCount + 1;
+
+        if (tail - head == queue.length) {
+          int[] grown = new int[queue.length * 2];
+          for (int i=0; i<queue.length; i++) {
+            grown[i] = queue[(head + i) & (queue.length - 1)];
+          }
+          tail = queue.length;
+          head = 0;
+          queue = grown;
+        }
+        queue[tail & (queue.length - 1)] = next;
+        tail = tail + 1;
+      }
+    }
+  }
+
+  /**  Gets the Maze the field was built for
+  *    @return Returns the Maze object
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Gets the number of cells the exit can be reached from, counting the exit
+  *    @return Returns the reached cell count
+  */
+  public int getReachedCount() {
+    return reachedCount;
+  }
+
+  /**  Checks if the exit can be reached from a cell
+  *    @param index: position of the cell, see Maze.indexAt
+  *    @return true if there is a route from the cell to the exit
+  */
+  public boolean isReachable(int index) {
+    return index >= 0 && index < field.capacity() && field.get(index) != UNREACHED;
+  }
+
+  /**  Gets the direction of the first step to take from a cell towards the exit
+  *    @param index: position of the cell, see Maze.indexAt
+  *    @return Returns the Direction to step in, or null at the exit or if the exit
+  *    cannot be reached from the cell
+  */
+  public Maze.Direction directionFrom(int index) {
+    if (isReachable(index) == false || field.get(index) == AT_EXIT) {
+      return null;
+    }
+    return DIRECTIONS[direction(index)];
+  }
+
+  /**  Gets the number of steps from a cell to the exit, by following the field
+  *    @param index: position of the cell, see Maze.indexAt
+  *    @throws maze.InvalidMazeException if the steps of a loaded field do not lead to
+  *    the exit
+  *    @return Returns the number of steps, or -1 if the exit cannot be reached from the cell
+  */
+  public int distanceFrom(int index) {
+    if (isReachable(index) == false) {
+      return -1;
+    }
+    int distance = 0;
+    for (int cell = index; field.get(cell) != AT_EXIT; cell = next(cell)) {
+      distance = distance + 1;
+      // no shortest route visits more cells than were reached
+      if (distance >= reachedCount) {
+        throw new InvalidMazeException();
+      }
+    }
+    return distance;
+  }
+
+  private int direction(int cell) {
+    int direction = field.get(cell) - 1;
+    if (direction < 0 || direction >= steps.length) {
+      throw new InvalidMazeException();
+    }
+    return direction;
+  }
+
+  // the cell one step nearer the exit, which must be in the maze and in the same
+  // row or column
+  private int next(int cell) {
+    int direction = direction(cell);
+    int next = cell + steps[direction];
+    if (next < 0 || next >= field.capacity() || (direction % 2 == 1 && next / width != cell / width)) {
+      throw new InvalidMazeException();
+    }
+    return next;
+  }
+
+  /**  Finds a shortest route from the entrance to the exit
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns the route, with the number of steps taken
+  */
+  public SolveResult solve() {
+    return routeFrom(maze.getEntranceIndex());
+  }
+
+  /**  Finds a shortest route from a cell to the exit by following the field
+  *    @param index: position of the cell to start at, see Maze.indexAt
+  *    @throws java.lang.IllegalArgumentException if the cell is outside the maze or a wall
+  *    @throws maze.routing.NoRouteFoundException if the exit cannot be reached from the cell
+  *    @throws maze.InvalidMazeException if the steps of a loaded field do not lead to
+  *    the exit
+  *    @return Returns the route, with the number of steps taken
+  */
+  public SolveResult routeFrom(int index) {
+    long start = System.nanoTime();
+    if (index < 0 || index >= field.capacity() || maze.isNavigable(index) == false) {
+      throw new IllegalArgumentException("Routes must start on a navigable cell");
+    }
+    if (isReachable(index) == false) {
+      throw new NoRouteFoundException();
+    }
+
+    int[] route = new int[distanceFrom(index) + 1];
+    int cell = index;
+    for (int i=0; i<route.length; i++) {
+      route[i] = cell;
+      if (i < route.length - 1) {
+        cell = next(cell);
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, route, true, route.length - 1, route.length, 0, elapsed);
+  }
+
+  /**  Writes the field to a field file that can be opened with load. The file holds a
+  *    short header followed by one byte per cell
+  *    @param fieldFile: name of the file to write
+  *    @throws java.io.IOException if the file cannot be written
+  */
+  public void save(String fieldFile) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fieldFile), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(maze.getWidth());
+      out.writeInt(maze.getHeight());
+      out.writeInt(maze.getExitIndex());
+      out.writeInt(reachedCount);
+      out.write(new byte[HEADER_SIZE - 20]);
+
+      byte[] block = new byte[1 << 16];
+      for (int position=0; position<field.capacity(); position=position+block.length) {
+        int length = Math.min(block.length, field.capacity() - position);
+        for (int i=0; i<length; i++) {
+          block[i] = field.get(position + i);
+        }
+        out.write(block, 0, length);
+      }
+    }
+  }
+
+  /**  Opens a field file written by save. The field is memory-mapped rather than read,
+  *    so the operating system pages it in as routes are followed
+  *    @param fieldFile: the field file to map
+  *    @param mazeObj: the maze the field was built for
+  *    @throws java.io.IOException if the file cannot be read or mapped
+  *    @throws maze.InvalidMazeException if the file is not a complete field file, or
+  *    its reached count cannot be right
+  *    @throws java.lang.IllegalArgumentException if the field was built for a maze of
+  *    another size or with its exit somewhere else
+  *    @return Returns a DistanceField reading from the mapped file
+  */
+  public static DistanceField load(String fieldFile, Maze mazeObj) throws IOException {
+    long cellCount = (long) mazeObj.getWidth() * mazeObj.getHeight();
+    try (FileChannel channel = FileChannel.open(Paths.get(fieldFile), StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE + cellCount) {
+        throw new InvalidMazeException();
+      }
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if (header.getInt() != MAGIC) {
+        throw new InvalidMazeException();
+      }
+      int[] recorded = {header.getInt(), header.getInt(), header.getInt()};
+      int[] expected = {mazeObj.getWidth(), mazeObj.getHeight(), mazeObj.getExitIndex()};
+      if (Arrays.equals(recorded, expected) == false) {
+        throw new IllegalArgumentException(fieldFile + " was built for a different maze");
+      }
+      int reached = header.getInt();
+      if (reached < 1 || reached > cellCount) {
+        throw new InvalidMazeException();
+      }
+      DistanceField distanceField = new DistanceField(mazeObj,
+          channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, cellCount));
+      distanceField.reachedCount = reached;
+      return distanceField;
+    }
+  }
+
+}
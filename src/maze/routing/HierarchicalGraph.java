@@ -0,0 +1,587 @@
+package maze.routing;
+
+import maze.Maze;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+/**  Hierarchical path-finding (HPA*) for mazes too large to search cell by cell. The
+*    maze is cut into square clusters. Where open cells face each other across the
+*    border of two clusters, a run of them becomes one crossing point, or two at its
+*    ends if the run is long. The distances between the crossing points of each cluster
+*    are found once, cluster by cluster on a fork-join pool, and make up a small graph
+*    of the whole maze.
+*    A query searches the cluster of the start and the cluster of the finish, joins
+*    them onto the graph and runs A* over the crossing points alone. Only the clusters
+*    on the route found are searched again, and only when the route is asked for.
+*    Routes never take a shortcut through a part of a run that is not a crossing point,
+*    so in open mazes they can be a little longer than a shortest route. In mazes with
+*    corridors one cell wide every route found is a shortest one.
+*    The graph can be saved and loaded again for the same maze. It records the size,
+*    entrance, exit and a CRC32 checksum of the cells of the maze it was built for, and
+*    loading it for any other maze fails
+*    @author Ashreen Kaur
+*/
+public class HierarchicalGraph implements Serializable {
+
+  /**  Width and height of the clusters used when none is given */
+  public static final int DEFAULT_CLUSTER_SIZE = 32;
+
+  // runs of at least this many facing cells get a crossing point at each end
+  private static final int LONG_RUN = 6;
+  private static final int CLUSTERS_PER_TASK = 16;
+
+  private transient Maze maze;
+  private int width;
+  private int height;
+  private int entranceIndex;
+  private int exitIndex;
+  private int checksum;
+  private int clusterSize;
+  private int clustersAcross;
+  private int clustersDown;
+  private int[] nodeCells;
+  private int[] clusterStarts;
+  private int[] edgeStarts;
+  private int[] edgeTargets;
+  private int[] edgeLengths;
+
+  private transient int[] links;
+  private transient int linkCount;
+  private transient int[] distances;
+  private transient int[] parents;
+  private transient IntHeap open;
+
+  /**  Constructor to create a HierarchicalGraph with clusters of the default size,
+  *    built on the common fork-join pool
+  *    @param mazeObj: the maze to build the graph of
+  */
+  public HierarchicalGraph(Maze mazeObj) {
+    this(mazeObj, DEFAULT_CLUSTER_SIZE, ForkJoinPool.commonPool());
+  }
+
+  /**  Constructor to create a HierarchicalGraph
+  *    @param mazeObj: the maze to build the graph of
+  *    @param size: width and height of each cluster, in cells
+  *    @param pool: the pool to search the clusters on
+  *    @throws java.lang.IllegalArgumentException if size is less than 2
+  */
+  public HierarchicalGraph(Maze mazeObj, int size, ForkJoinPool pool) {
+    if (size < 2) {
+      throw new IllegalArgumentException("Clusters must be at least 2 cells across");
+    }
+    maze = mazeObj;
+    width = maze.getWidth();
+    height = maze.getHeight();
+    entranceIndex = maze.getEntranceIndex();
+    exitIndex = maze.getExitIndex();
+    checksum = checksumOf(maze);
+    clusterSize = size;
+    clustersAcross = (width + size - 1) / size;
+    clustersDown = (height + size - 1) / size;
+
+    findCrossings();
+    placeNodes();
+    int[][] clusterDistances = new int[clustersAcross * clustersDown][];
+    pool.invoke(new ClustersTask(0, clusterDistances.length, clusterDistances));
+    linkNodes(clusterDistances);
+    links = null;
+    linkCount = 0;
+    prepare();
+  }
+
+  private static int checksumOf(Maze mazeObj) {
+    CRC32 crc = new CRC32();
+    byte[] row = new byte[mazeObj.getWidth()];
+    for (int y=0; y<mazeObj.getHeight(); y++) {
+      for (int x=0; x<row.length; x++) {
+        row[x] = (byte) mazeObj.typeAt((long) y * row.length + x).ordinal();
+      }
+      crc.update(row, 0, row.length);
+    }
+    return (int) crc.getValue();
+  }
+
+  private void prepare() {
+    distances = new int[nodeCells.length + 2];
+    parents = new int[nodeCells.length + 2];
+    open = new IntHeap(nodeCells.length + 2);
+  }
+
+  private int clusterOf(int cell) {
+    return (cell / width / clusterSize) * clustersAcross + cell % width / clusterSize;
+  }
+
+  private int nodeOf(int cell) {
+    int cluster = clusterOf(cell);
+    return Arrays.binarySearch(nodeCells, clusterStarts[cluster], clusterStarts[cluster + 1], cell);
+  }
+
+  private void findCrossings() {
+    links = new int[64];
+    for (int across=1; across<clustersAcross; across++) {
+      int column = across * clusterSize;
+      for (int top=0; top<height; top=top+clusterSize) {
+        scanBorder(top * width + column - 1, width, Math.min(clusterSize, height - top), 1);
+      }
+    }
+    for (int down=1; down<clustersDown; down++) {
+      int row = down * clusterSize;
+      for (int left=0; left<width; left=left+clusterSize) {
+        scanBorder((row - 1) * width + left, 1, Math.min(clusterSize, width - left), width);
+      }
+    }
+  }
+
+  // looks along one border for runs of open cells facing open cells on the other side
+  private void scanBorder(int first, int step, int count, int across) {
+    int runStart = -1;
+    for (int i=0; i<=count; i++) {
+      int cell = first + i * step;
+      boolean facing = i < count && maze.isNavigable(cell) && maze.isNavigable(cell + across);
+      if (facing == true && runStart == -1) {
+        runStart = i;
+      } else if (facing == false && runStart != -1) {
+        int runEnd = i - 1;
+        if (runEnd - runStart + 1 >= LONG_RUN) {
+          addCrossing(first + runStart * step, across);
+          addCrossing(first + runEnd * step, across);
+        } else {
+          addCrossing(first + (runStart + runEnd) / 2 * step, across);
+        }
+        runStart = -1;
+      }
+    }
+  }
+
+  private void addCrossing(int cell, int across) {
+    if (linkCount + 2 > links.length) {
+      links = Arrays.copyOf(links, links.length * 2);
+    }
+    links[linkCount] = cell;
+    links[linkCount + 1] = cell + across;
+    linkCount = linkCount + 2;
+  }
+
+  // orders the crossing cells by cluster, then by cell, dropping any repeats
+  private void placeNodes() {
+    long[] keys = new long[linkCount];
+    for (int i=0; i<linkCount; i++) {
+      keys[i] = (long) clusterOf(links[i]) << 32 | links[i];
+    }
+    Arrays.sort(keys);
+
+    int count = 0;
+    for (int i=0; i<keys.length; i++) {
+      if (i == 0 || keys[i] != keys[i - 1]) {
+        keys[count] = keys[i];
+        count = count + 1;
+      }
+    }
+    nodeCells = new int[count];
+    clusterStarts = new int[clustersAcross * clustersDown + 1];
+    for (int node=0; node<count; node++) {
+      nodeCells[node] = (int) keys[node];
+      clusterStarts[(int) (keys[node] >>> 32) + 1]++;
+    }
+    for (int cluster=0; cluster<clustersAcross*clustersDown; cluster++) {
+      clusterStarts[cluster + 1] = clusterStarts[cluster + 1] + clusterStarts[cluster];
+    }
+  }
+
+  // distances between every pair of crossing points of a cluster, or -1 if there is
+  // no way between them inside the cluster
+  private int[] distancesWithin(int cluster) {
+    Cluster cells = new Cluster(cluster);
+    int first = clusterStarts[cluster];
+    int count = clusterStarts[cluster + 1] - first;
+    int[] table = new int[count * count];
+    for (int i=0; i<count; i++) {
+      int[] reached = cells.distancesFrom(nodeCells[first + i]);
+      for (int j=0; j<count; j++) {
+        table[i * count + j] = reached[cells.local(nodeCells[first + j])];
+      }
+    }
+    return table;
+  }
+
+  private void linkNodes(int[][] clusterDistances) {
+    int[] degrees = new int[nodeCells.length + 1];
+    for (int i=0; i<linkCount; i=i+2) {
+      degrees[nodeOf(links[i])]++;
+      degrees[nodeOf(links[i + 1])]++;
+    }
+    for (int cluster=0; cluster<clusterDistances.length; cluster++) {
+      int first = clusterStarts[cluster];
+      int count = clusterStarts[cluster + 1] - first;
+      for (int i=0; i<count; i++) {
+        for (int j=0; j<count; j++) {
+          if (i != j && clusterDistances[cluster][i * count + j] > 0) {
+            degrees[first + i]++;
+          }
+        }
+      }
+    }
+
+    edgeStarts = new int[nodeCells.length + 1];
+    for (int node=0; node<nodeCells.length; node++) {
+      edgeStarts[node + 1] = edgeStarts[node] + degrees[node];
+    }
+    edgeTargets = new int[edgeStarts[nodeCells.length]];
+    edgeLengths = new int[edgeTargets.length];
+    int[] filled = Arrays.copyOf(edgeStarts, nodeCells.length);
+
+    for (int i=0; i<linkCount; i=i+2) {
+      int from = nodeOf(links[i]);
+      int to = nodeOf(links[i + 1]);
+      addEdge(filled, from, to, 1);
+      addEdge(filled, to, from, 1);
+    }
+    for (int cluster=0; cluster<clusterDistances.length; cluster++) {
+      int first = clusterStarts[cluster];
+      int count = clusterStarts[cluster + 1] - first;
+      for (int i=0; i<count; i++) {
+        for (int j=0; j<count; j++) {
+          if (i != j && clusterDistances[cluster][i * count + j] > 0) {
+            addEdge(filled, first + i, first + j, clusterDistances[cluster][i * count + j]);
+          }
+        }
+      }
+    }
+  }
+
+  private void addEdge(int[] filled, int from, int to, int length) {
+    edgeTargets[filled[from]] = to;
+    edgeLengths[filled[from]] = length;
+    filled[from] = filled[from] + 1;
+  }
+
+  /**  Gets the Maze the graph was built for
+  *    @return Returns the Maze object
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Gets the number of clusters the maze is cut into
+  *    @return Returns the cluster count
+  */
+  public int getClusterCount() {
+    return clustersAcross * clustersDown;
+  }
+
+  /**  Gets the number of crossing points between clusters
+  *    @return Returns the number of graph nodes
+  */
+  public int getNodeCount() {
+    return nodeCells.length;
+  }
+
+  /**  Gets the number of edges between crossing points, counting each once from either end
+  *    @return Returns the number of graph edges
+  */
+  public int getEdgeCount() {
+    return edgeTargets.length;
+  }
+
+  /**  Finds a route from the entrance to the exit
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns the route and the statistics of the search
+  */
+  public SolveResult solve() {
+    return solve(maze.getEntranceIndex(), maze.getExitIndex());
+  }
+
+  /**  Finds a route between two cells. The steps of the result are the number of
+  *    crossing points settled, and the clusters on the route are only searched again
+  *    when the route is asked for
+  *    @param fromIndex: position of the cell to start at, see Maze.indexAt
+  *    @param toIndex: position of the cell to finish at
+  *    @throws java.lang.IllegalArgumentException if either cell is outside the maze or a wall
+  *    @throws maze.routing.NoRouteFoundException if there is no route between the cells
+  *    @return Returns the route and the statistics of the search
+  */
+  public SolveResult solve(int fromIndex, int toIndex) {
+    long start = System.nanoTime();
+    if (isOpenCell(fromIndex) == false || isOpenCell(toIndex) == false) {
+      throw new IllegalArgumentException("Routes must start and finish on navigable cells");
+    }
+
+    int startNode = nodeCells.length;
+    int goalNode = nodeCells.length + 1;
+    int startCluster = clusterOf(fromIndex);
+    int goalCluster = clusterOf(toIndex);
+    Cluster startCells = new Cluster(startCluster);
+    Cluster goalCells = new Cluster(goalCluster);
+    int[] fromStart = startCells.distancesFrom(fromIndex);
+    int[] toGoal = goalCells.distancesFrom(toIndex);
+
+    Arrays.fill(distances, Integer.MAX_VALUE);
+    while (open.isEmpty() == false) {
+      open.pop();
+    }
+    distances[startNode] = 0;
+    parents[startNode] = -1;
+    open.push(startNode, key(fromIndex, toIndex, 0));
+    long settled = 0;
+    long reached = 1;
+
+    while (open.isEmpty() == false) {
+      int node = open.pop();
+      settled = settled + 1;
+      if (node == goalNode) {
+        break;
+      }
+      int distance = distances[node];
+      if (node == startNode) {
+        for (int next=clusterStarts[startCluster]; next<clusterStarts[startCluster + 1]; next++) {
+          int length = fromStart[startCells.local(nodeCells[next])];
+          if (length >= 0) {
+            reached = reached + relax(node, next, length, toIndex);
+          }
+        }
+        if (startCluster == goalCluster && fromStart[startCells.local(toIndex)] >= 0) {
+          reached = reached + relax(node, goalNode, fromStart[startCells.local(toIndex)], toIndex);
+        }
+        continue;
+      }
+      for (int edge=edgeStarts[node]; edge<edgeStarts[node + 1]; edge++) {
+        reached = reached + relax(node, edgeTargets[edge], distance + edgeLengths[edge], toIndex);
+      }
+      if (clusterOf(nodeCells[node]) == goalCluster) {
+        int length = toGoal[goalCells.local(nodeCells[node])];
+        if (length >= 0) {
+          reached = reached + relax(node, goalNode, distance + length, toIndex);
+        }
+      }
+    }
+    if (distances[goalNode] == Integer.MAX_VALUE) {
+      throw new NoRouteFoundException();
+    }
+
+    int[] waypoints = waypoints(goalNode, fromIndex, toIndex);
+    int length = distances[goalNode] + 1;
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, () -> refine(waypoints, length), length, true, settled, reached, elapsed);
+  }
+
+  private boolean isOpenCell(int index) {
+    return index >= 0 && index < width * height && maze.isNavigable(index);
+  }
+
+  // counts 1 if the node had not been reached before
+  private int relax(int from, int to, int distance, int goal) {
+    if (distance >= distances[to]) {
+      return 0;
+    }
+    int counted = 0;
+    if (distances[to] == Integer.MAX_VALUE) {
+      counted = 1;
+    }
+    distances[to] = distance;
+    parents[to] = from;
+    int cell = goal;
+    if (to < nodeCells.length) {
+      cell = nodeCells[to];
+    }
+    open.push(to, key(cell, goal, distance));
+    return counted;
+  }
+
+  // ordered by estimated route length, then by distance travelled with the furthest first
+  private long key(int cell, int goal, int distance) {
+    int estimate = Math.abs(cell / width - goal / width) + Math.abs(cell % width - goal % width);
+    return (long) (distance + estimate) << 32 | (Integer.MAX_VALUE - distance);
+  }
+
+  private int[] waypoints(int goalNode, int fromIndex, int toIndex) {
+    int count = 0;
+    for (int node = goalNode; node != -1; node = parents[node]) {
+      count = count + 1;
+    }
+    int[] cells = new int[count];
+    cells[0] = fromIndex;
+    cells[count - 1] = toIndex;
+    int node = parents[goalNode];
+    for (int i=count-2; i>0; i--) {
+      cells[i] = nodeCells[node];
+      node = parents[node];
+    }
+    return cells;
+  }
+
+  // walks the route out cell by cell, searching each cluster it passes through
+  private int[] refine(int[] waypoints, int length) {
+    int[] route = new int[length];
+    route[0] = waypoints[0];
+    int position = 1;
+    for (int i=1; i<waypoints.length; i++) {
+      int from = waypoints[i - 1];
+      int to = waypoints[i];
+      if (clusterOf(from) != clusterOf(to)) {
+        route[position] = to;
+        position = position + 1;
+        continue;
+      }
+      int[] part = new Cluster(clusterOf(from)).route(from, to);
+      System.arraycopy(part, 1, route, position, part.length - 1);
+      position = position + part.length - 1;
+    }
+    return route;
+  }
+
+  /**  Reads a graph saved by save. The maze is not saved with the graph, so it must
+  *    be given again, and its size, entrance, exit and cells must match the maze the
+  *    graph was built for
+  *    @param graphFile: name of the object file we are reading from
+  *    @param mazeObj: the maze the graph was built for
+  *    @return Returns the HierarchicalGraph read from the file, or null if it could not be read
+  */
+  public static HierarchicalGraph load(String graphFile, Maze mazeObj) {
+    HierarchicalGraph graph = null;
+    try (ObjectInputStream objectInStream = new ObjectInputStream(new FileInputStream(graphFile))) {
+      graph = (HierarchicalGraph) objectInStream.readObject();
+    } catch (FileNotFoundException e) {
+        System.out.println("Error: Could not read " + graphFile);
+        return null;
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        System.out.println("Error: problem when reading "+ graphFile);
+        return null;
+    }
+    int[] recorded = {graph.width, graph.height, graph.entranceIndex, graph.exitIndex, graph.checksum};
+    int[] expected = {mazeObj.getWidth(), mazeObj.getHeight(), mazeObj.getEntranceIndex(),
+        mazeObj.getExitIndex(), checksumOf(mazeObj)};
+    if (Arrays.equals(recorded, expected) == false) {
+      System.out.println("Error: " + graphFile + " was built for a different maze");
+      return null;
+    }
+    graph.maze = mazeObj;
+    graph.prepare();
+    return graph;
+  }
+
+  /**  Serializes the graph into an object file, without the maze
+  *    @param outputFilename The name of the file the graph is being serialized to.
+  */
+  public void save(String outputFilename) {
+    try (ObjectOutputStream objectOutStream = new ObjectOutputStream(new FileOutputStream(outputFilename))) {
+      objectOutStream.writeObject(this);
+    } catch (FileNotFoundException e) {
+      System.out.println("No file found");
+    } catch (IOException e) {
+      System.out.println("There was a problem reading the file");
+    }
+  }
+
+  /**  Finds the distances between the crossing points of a run of clusters, splitting
+  *    the run in half until it is small enough to do on one thread
+  */
+  private class ClustersTask extends RecursiveAction {
+    private int firstCluster;
+    private int endCluster;
+    private int[][] results;
+
+    private ClustersTask(int first, int end, int[][] out) {
+      firstCluster = first;
+      endCluster = end;
+      results = out;
+    }
+
+    protected void compute() {
+      if (endCluster - firstCluster > CLUSTERS_PER_TASK) {
+        int middle = (firstCluster + endCluster) >>> 1;
+        invokeAll(new ClustersTask(firstCluster, middle, results),
+            new ClustersTask(middle, endCluster, results));
+        return;
+      }
+      for (int cluster=firstCluster; cluster<endCluster; cluster++) {
+        results[cluster] = distancesWithin(cluster);
+      }
+    }
+  }
+
+  /**  A copy of which cells of one cluster are open, with a closed border around it,
+  *    for breadth-first searches that stay inside the cluster. Cells of the copy are
+  *    numbered row by row from the top left corner of the border
+  */
+  private class Cluster {
+    private int top;
+    private int left;
+    private int paddedWidth;
+    private int[] offsets;
+    private boolean[] open;
+
+    private Cluster(int cluster) {
+      top = cluster / clustersAcross * clusterSize;
+      left = cluster % clustersAcross * clusterSize;
+      int rows = Math.min(clusterSize, height - top);
+      int columns = Math.min(clusterSize, width - left);
+      paddedWidth = columns + 2;
+      offsets = new int[]{-paddedWidth, 1, paddedWidth, -1};
+      open = new boolean[paddedWidth * (rows + 2)];
+      for (int row=0; row<rows; row++) {
+        for (int column=0; column<columns; column++) {
+          open[(row + 1) * paddedWidth + column + 1] = maze.isNavigable((top + row) * width + left + column);
+        }
+      }
+    }
+
+    private int local(int cell) {
+      return (cell / width - top + 1) * paddedWidth + cell % width - left + 1;
+    }
+
+    private int global(int local) {
+      return (top + local / paddedWidth - 1) * width + left + local % paddedWidth - 1;
+    }
+
+    private int[] distancesFrom(int cell) {
+      int[] reached = new int[open.length];
+      Arrays.fill(reached, -1);
+      int[] queue = new int[open.length];
+      int start = local(cell);
+      reached[start] = 0;
+      queue[0] = start;
+      int tail = 1;
+      for (int head=0; head<tail; head++) {
+        int current = queue[head];
+        for (int offset : offsets) {
+          int next = current + offset;
+          if (open[next] == true && reached[next] == -1) {
+            reached[next] = reached[current] + 1;
+            queue[tail] = next;
+            tail = tail + 1;
+          }
+        }
+      }
+      return reached;
+    }
+
+    // a shortest route inside the cluster, found by walking downhill from the start
+    // over the distances to the finish
+    private int[] route(int from, int to) {
+      int[] reached = distancesFrom(to);
+      int current = local(from);
+      int[] cells = new int[reached[current] + 1];
+      for (int i=0; i<cells.length; i++) {
+        cells[i] = global(current);
+        for (int offset : offsets) {
+          if (i < cells.length - 1 && reached[current + offset] == reached[current] - 1) {
+            current = current + offset;
+            break;
+          }
+        }
+      }
+      return cells;
+    }
+  }
+
+}
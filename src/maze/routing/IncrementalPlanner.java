@@ -0,0 +1,185 @@
+package maze.routing;
+
+import maze.Maze;
+
+import java.util.Arrays;
+
+/**  Shortest routes through a maze whose walls open and close, found with Lifelong
+*    Planning A*. The first solve is an A* search from the entrance. After that, the
+*    planner is told about each cell that changed with cellChanged, and the next solve
+*    only repairs the distances the change made wrong, rather than searching the whole
+*    maze again. A change far from the route, or one that opens a cell nothing better
+*    goes through, costs a handful of expansions.
+*    Every cell keeps its distance from the entrance, g, and the distance its
+*    neighbours say it should have, rhs. Cells where the two differ wait in an IntHeap,
+*    ordered like A* by distance plus the Manhattan distance to the exit, and are
+*    expanded until the exit is settled and nothing waiting could still give it a
+*    shorter route. A cell whose rhs came back to its g while it waited is skipped,
+*    one whose rhs dropped below g takes the lower distance, and one whose rhs rose
+*    above g gives up its distance and has its neighbours looked at again
+*    @author Ashreen Kaur
+*/
+public class IncrementalPlanner {
+
+  private static final int UNREACHED = Integer.MAX_VALUE;
+
+  private Maze maze;
+  private PaddedGrid grid;
+  private byte[] cells;
+  private int[] offsets;
+  private int[] distances;
+  private int[] expected;
+  private IntHeap open;
+  private int entrance;
+  private int exit;
+  private int exitRow;
+  private int exitColumn;
+
+  /**  Constructor to create an IncrementalPlanner. Nothing is searched until solve is called
+  *    @param mazeObj: the maze to plan routes through
+  */
+  public IncrementalPlanner(Maze mazeObj) {
+    maze = mazeObj;
+    grid = new PaddedGrid(maze);
+    cells = grid.cells;
+    offsets = grid.offsets();
+    distances = new int[cells.length];
+    expected = new int[cells.length];
+    Arrays.fill(distances, UNREACHED);
+    Arrays.fill(expected, UNREACHED);
+    open = new IntHeap(cells.length);
+
+    entrance = grid.padded(maze.getEntranceIndex());
+    exit = grid.padded(maze.getExitIndex());
+    exitRow = exit / grid.paddedWidth;
+    exitColumn = exit % grid.paddedWidth;
+    expected[entrance] = 0;
+    open.push(entrance, key(entrance));
+  }
+
+  private int estimate(int cell) {
+    return Math.abs(cell / grid.paddedWidth - exitRow) + Math.abs(cell % grid.paddedWidth - exitColumn);
+  }
+
+  // ordered by estimated route length, then by distance from the entrance
+  private long key(int cell) {
+    int distance = Math.min(distances[cell], expected[cell]);
+    if (distance == UNREACHED) {
+      return Long.MAX_VALUE;
+    }
+    return (long) (distance + estimate(cell)) << 32 | distance;
+  }
+
+  /**  Gets Maze object
+  *    @return Returns Maze object we are planning routes through
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Tells the planner that a cell of the maze was opened or closed with
+  *    Maze.setNavigable. The change is taken into account by the next solve
+  *    @param index: position of the cell that changed, see Maze.indexAt
+  *    @throws java.lang.IndexOutOfBoundsException if the cell is outside the maze
+  */
+  public void cellChanged(int index) {
+    if (index < 0 || index >= grid.width * grid.height) {
+      throw new IndexOutOfBoundsException("No cell " + index);
+    }
+    int cell = grid.padded(index);
+    byte type = (byte) maze.typeAt(index).ordinal();
+    if (cells[cell] == type) {
+      return;
+    }
+    cells[cell] = type;
+    // costs are paid on entering a cell, so only the cell itself needs a new
+    // rhs; its neighbours follow once its distance settles
+    update(cell);
+  }
+
+  private void update(int cell) {
+    if (cell != entrance) {
+      expected[cell] = UNREACHED;
+      if (grid.isNavigable(cell)) {
+        for (int offset : offsets) {
+          int distance = distances[cell + offset];
+          if (distance != UNREACHED && distance + 1 < expected[cell]) {
+            expected[cell] = distance + 1;
+          }
+        }
+      }
+    }
+    if (distances[cell] != expected[cell]) {
+      open.push(cell, key(cell));
+    } else {
+      open.remove(cell);
+    }
+  }
+
+  /**  Finds a shortest route from the entrance to the exit, repairing the route found
+  *    by the last solve after any cells that changed. The steps of the result are the
+  *    number of cells expanded by this solve alone
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns a shortest route and the statistics of the search
+  */
+  public SolveResult solve() {
+    long start = System.nanoTime();
+    long expanded = 0;
+    while (open.isEmpty() == false
+        && (open.peekKey() < key(exit) || distances[exit] != expected[exit])) {
+      int cell = open.pop();
+      if (distances[cell] == expected[cell]) {
+        // made consistent again after it was queued, so there is nothing to repair
+        continue;
+      }
+      expanded = expanded + 1;
+      if (distances[cell] > expected[cell]) {
+        distances[cell] = expected[cell];
+        for (int offset : offsets) {
+          int next = cell + offset;
+          if (grid.isNavigable(next) && distances[cell] + 1 < expected[next]) {
+            expected[next] = distances[cell] + 1;
+            open.push(next, key(next));
+          }
+        }
+      } else if (distances[cell] < expected[cell]) {
+        // the cell got further away, so everything that leant on it is looked at again
+        int old = distances[cell];
+        distances[cell] = UNREACHED;
+        update(cell);
+        for (int offset : offsets) {
+          int next = cell + offset;
+          if (grid.isNavigable(next) && expected[next] == old + 1) {
+            update(next);
+          }
+        }
+      }
+    }
+    if (distances[exit] == UNREACHED) {
+      throw new NoRouteFoundException();
+    }
+
+    int[] route = routeIndices();
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, route, true, expanded, route.length, 0, elapsed);
+  }
+
+  // walks back from the exit, always to a neighbour one step nearer the entrance
+  private int[] routeIndices() {
+    int[] route = new int[distances[exit] + 1];
+    int cell = exit;
+    for (int i=route.length-1; i>=0; i--) {
+      route[i] = grid.unpadded(cell);
+      if (i > 0) {
+        for (int offset : offsets) {
+          if (grid.isNavigable(cell + offset) && distances[cell + offset] == i - 1) {
+            cell = cell + offset;
+            break;
+          }
+        }
+      }
+    }
+    return route;
+  }
+
+}
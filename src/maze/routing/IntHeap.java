@@ -0,0 +1,150 @@
+package maze.routing;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**  Binary min-heap of int items, each with a long key, kept in plain arrays so
+*    nothing is boxed. Items are numbers from 0 up to a fixed capacity, and the heap
+*    remembers where each item sits so its key can be lowered in place
+*    @author Ashreen Kaur
+*/
+class IntHeap implements Serializable {
+
+  private int[] items;
+  private long[] keys;
+  private int[] positions;
+  private int size;
+
+  /**  Constructor to create an IntHeap
+  *    @param capacity: one more than the largest item that will be added
+  */
+  IntHeap(int capacity) {
+    items = new int[16];
+    keys = new long[16];
+    positions = new int[capacity];
+    Arrays.fill(positions, -1);
+  }
+
+  /**  Checks if the heap is empty
+  *    @return true if there are no items in the heap
+  */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**  Gets the number of items in the heap
+  *    @return Returns the number of items
+  */
+  int size() {
+    return size;
+  }
+
+  /**  Checks if an item is in the heap
+  *    @param item: the item to look for
+  *    @return true if the item is in the heap
+  */
+  boolean contains(int item) {
+    return positions[item] != -1;
+  }
+
+  /**  Gets the smallest key in the heap
+  *    @return Returns the key of the item that pop would return
+  */
+  long peekKey() {
+    return keys[0];
+  }
+
+  /**  Adds an item, or moves it if it is already in the heap
+  *    @param item: the item to add
+  *    @param key: the key to order it by
+  */
+  void push(int item, long key) {
+    int position = positions[item];
+    if (position == -1) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+        keys = Arrays.copyOf(keys, size * 2);
+      }
+      position = size;
+      size = size + 1;
+      place(item, key, position);
+      siftUp(position);
+    } else if (key < keys[position]) {
+      keys[position] = key;
+      siftUp(position);
+    } else {
+      keys[position] = key;
+      siftDown(position);
+    }
+  }
+
+  /**  Removes the item with the smallest key
+  *    @return Returns the removed item
+  */
+  int pop() {
+    int top = items[0];
+    removeAt(0);
+    return top;
+  }
+
+  /**  Removes an item if it is in the heap
+  *    @param item: the item to remove
+  */
+  void remove(int item) {
+    int position = positions[item];
+    if (position != -1) {
+      removeAt(position);
+    }
+  }
+
+  private void removeAt(int position) {
+    int item = items[position];
+    positions[item] = -1;
+    size = size - 1;
+    if (position < size) {
+      place(items[size], keys[size], position);
+      siftDown(position);
+      siftUp(position);
+    }
+  }
+
+  private void place(int item, long key, int position) {
+    items[position] = item;
+    keys[position] = key;
+    positions[item] = position;
+  }
+
+  private void siftUp(int position) {
+    int item = items[position];
+    long key = keys[position];
+    while (position > 0) {
+      int parent = (position - 1) >>> 1;
+      if (keys[parent] <= key) {
+        break;
+      }
+      place(items[parent], keys[parent], position);
+      position = parent;
+    }
+    place(item, key, position);
+  }
+
+  private void siftDown(int position) {
+    int item = items[position];
+    long key = keys[position];
+    while (true) {
+      int child = 2 * position + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && keys[child + 1] < keys[child]) {
+        child = child + 1;
+      }
+      if (keys[child] >= key) {
+        break;
+      }
+      place(items[child], keys[child], position);
+      position = child;
+    }
+    place(item, key, position);
+  }
+}
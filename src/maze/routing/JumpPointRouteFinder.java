@@ -0,0 +1,319 @@
+package maze.routing;
+
+import maze.Maze;
+import maze.Tile;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**  Class to create JumpPointRouteFinder objects. This is A* with jump point search
+*    for grids where every move costs the same and only the four straight moves are
+*    allowed. Instead of adding each neighbour to the open list, the search runs in a
+*    straight line until it reaches a cell where the route could usefully turn, and
+*    only those jump points are added. Corridors and open rooms are crossed with a few
+*    array reads instead of many heap operations, and the route found is still a
+*    shortest one.
+*    Moving east or west, a cell is a jump point if a wall behind it on either side
+*    opens up beside it. Moving north or south, a cell is also a jump point if a jump
+*    east or west from it reaches a jump point
+*    @author Ashreen Kaur
+*/
+public class JumpPointRouteFinder implements Serializable {
+
+  private static final int SEEN = 4;
+  private static final int CLOSED = 8;
+
+  private Maze maze;
+  private PaddedGrid grid;
+  private byte[] cells;
+  private int[] offsets;
+  private int[] distances;
+  private int[] parents;
+  private IntHeap open;
+  private int entrance;
+  private int exit;
+  private int exitRow;
+  private int exitColumn;
+  private int current;
+  private boolean finished;
+  private long expanded;
+  private long pushes;
+  private long visitedCount;
+
+  /**  Constructor to create JumpPointRouteFinder objects
+  *    @param mazeObj: the maze the JumpPointRouteFinder object will try to solve
+  */
+  public JumpPointRouteFinder(Maze mazeObj) {
+    maze = mazeObj;
+    grid = new PaddedGrid(maze);
+    cells = grid.cells;
+    offsets = grid.offsets();
+    distances = new int[cells.length];
+    parents = new int[cells.length];
+    open = new IntHeap(cells.length);
+
+    exit = grid.padded(maze.getTileIndex(maze.getExit()));
+    exitRow = exit / grid.paddedWidth;
+    exitColumn = exit % grid.paddedWidth;
+
+    entrance = grid.padded(maze.getTileIndex(maze.getEntrance()));
+    cells[entrance] |= SEEN;
+    parents[entrance] = entrance;
+    visitedCount = 1;
+    current = entrance;
+    open.push(entrance, key(entrance, 0));
+    pushes = 1;
+  }
+
+  private int distanceBetween(int from, int to) {
+    return Math.abs(from / grid.paddedWidth - to / grid.paddedWidth)
+        + Math.abs(from % grid.paddedWidth - to % grid.paddedWidth);
+  }
+
+  private long key(int cell, int distance) {
+    int estimate = Math.abs(cell / grid.paddedWidth - exitRow) + Math.abs(cell % grid.paddedWidth - exitColumn);
+    return (long) (distance + estimate) << 32 | (Integer.MAX_VALUE - distance);
+  }
+
+  private boolean isOpen(int cell) {
+    return (cells[cell] & PaddedGrid.TYPE_MASK) != PaddedGrid.WALL;
+  }
+
+  /**  Gets Maze object
+  *    @return Returns Maze object we are trying to find a route for
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Returns a boolean value which tells us if the route is complete
+  *    @return Returns a boolean value, true if the exit has been reached and false if it has not
+  */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**  Checks if the search has added a Tile to its open list as a jump point
+  *    @param tile: Tile of the maze being solved
+  *    @return true if Tile object has been reached as a jump point, and false if it has not
+  */
+  public boolean isVisited(Tile tile) {
+    return (cells[grid.padded(maze.getTileIndex(tile))] & SEEN) != 0;
+  }
+
+  /**  Gets the number of jump points the search has expanded so far
+  *    @return Returns the expanded jump point count
+  */
+  public long getExpanded() {
+    return expanded;
+  }
+
+  /**  Gets the number of times a jump point has been added to or moved in the open list
+  *    @return Returns the open list push count
+  */
+  public long getPushes() {
+    return pushes;
+  }
+
+  /**  Gets the route from the entrance to the jump point expanded last, with the
+  *    straight runs between jump points filled in. Once the search is finished this
+  *    is a shortest route to the exit
+  *    @return Returns a list of the Tiles on the route
+  */
+  public List<Tile> getRoute() {
+    int[] route = routeIndices();
+    List<Tile> routeList = new ArrayList<Tile>(route.length);
+    for (int index : route) {
+      routeList.add(maze.tileAt(index));
+    }
+    return routeList;
+  }
+
+  private int[] routeIndices() {
+    int[] route = new int[distances[current] + 1];
+    int cell = current;
+    int i = route.length - 1;
+    while (cell != entrance) {
+      int parent = parents[cell];
+      int offset = directionOf(parent, cell);
+      for (int walk = cell; walk != parent; walk = walk - offset) {
+        route[i] = grid.unpadded(walk);
+        i = i - 1;
+      }
+      cell = parent;
+    }
+    route[0] = grid.unpadded(entrance);
+    return route;
+  }
+
+  private int directionOf(int from, int to) {
+    if (from / grid.paddedWidth == to / grid.paddedWidth) {
+      return Integer.signum(to - from);
+    }
+    return Integer.signum(to - from) * grid.paddedWidth;
+  }
+
+  /**  Reads an object file to retrive a JumpPointRouteFinder object
+  *    @param mazeFile: name of the object file we are reading from
+  *    @return Returns a JumpPointRouteFinder object read from the file
+  */
+  public static JumpPointRouteFinder load(String mazeFile) {
+    JumpPointRouteFinder rfObject = null;
+    try (ObjectInputStream objectInStream = new ObjectInputStream(new FileInputStream(mazeFile))) {
+      rfObject = (JumpPointRouteFinder) objectInStream.readObject();
+    } catch (FileNotFoundException e) {
+        System.out.println("Error: Could not read " + mazeFile);
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        System.out.println("Error: problem when reading "+ mazeFile);
+    }
+    return rfObject;
+  }
+
+  /**  Serializes current JumpPointRouteFinder object into a object file
+  *    @param outputFilename The name of the file the object is being serialized to.
+  */
+  public void save(String outputFilename) {
+    try (ObjectOutputStream objectOutStream = new ObjectOutputStream(new FileOutputStream(outputFilename))) {
+      objectOutStream.writeObject(this);
+    } catch (FileNotFoundException e) {
+      System.out.println("No file found");
+    } catch (IOException e) {
+      System.out.println("There was a problem reading the file");
+    }
+  }
+
+  /**  Expands the waiting jump point with the shortest estimated route through it
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns true if the exit has been reached and false if it has not
+  */
+  public boolean step() {
+
+    if (finished == true) {
+      return finished;
+    }
+    if (open.isEmpty()) {
+      throw new NoRouteFoundException();
+    }
+
+    current = open.pop();
+    if (current == exit) {
+      finished = true;
+      return true;
+    }
+    cells[current] |= CLOSED;
+    expanded = expanded + 1;
+
+    if (current == entrance) {
+      for (int offset : offsets) {
+        follow(offset);
+      }
+    } else {
+      // keep going the same way, or turn either way off it
+      int forward = directionOf(parents[current], current);
+      int side = grid.paddedWidth;
+      if (forward == grid.paddedWidth || forward == -grid.paddedWidth) {
+        side = 1;
+      }
+      follow(forward);
+      follow(side);
+      follow(-side);
+    }
+    return false;
+  }
+
+  private void follow(int offset) {
+    int jumpPoint = jump(current + offset, offset);
+    if (jumpPoint == -1 || (cells[jumpPoint] & CLOSED) != 0) {
+      return;
+    }
+    int distance = distances[current] + distanceBetween(current, jumpPoint);
+    if ((cells[jumpPoint] & SEEN) == 0 || distance < distances[jumpPoint]) {
+      if ((cells[jumpPoint] & SEEN) == 0) {
+        visitedCount = visitedCount + 1;
+      }
+      cells[jumpPoint] |= SEEN;
+      distances[jumpPoint] = distance;
+      parents[jumpPoint] = current;
+      open.push(jumpPoint, key(jumpPoint, distance));
+      pushes = pushes + 1;
+    }
+  }
+
+  private int jump(int cell, int offset) {
+    if (offset == 1 || offset == -1) {
+      return jumpAcross(cell, offset);
+    }
+    while (isOpen(cell)) {
+      if (cell == exit) {
+        return cell;
+      }
+      if ((isOpen(cell - 1) && isOpen(cell - offset - 1) == false)
+          || (isOpen(cell + 1) && isOpen(cell - offset + 1) == false)) {
+        return cell;
+      }
+      if (jumpAcross(cell + 1, 1) != -1 || jumpAcross(cell - 1, -1) != -1) {
+        return cell;
+      }
+      cell = cell + offset;
+    }
+    return -1;
+  }
+
+  private int jumpAcross(int cell, int offset) {
+    int row = grid.paddedWidth;
+    while (isOpen(cell)) {
+      if (cell == exit) {
+        return cell;
+      }
+      if ((isOpen(cell - row) && isOpen(cell - offset - row) == false)
+          || (isOpen(cell + row) && isOpen(cell - offset + row) == false)) {
+        return cell;
+      }
+      cell = cell + offset;
+    }
+    return -1;
+  }
+
+  /**  Runs the search until it reaches the exit. The steps of the result are the
+  *    number of jump points expanded, and its visited count the number of jump points
+  *    added to the open list
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns a shortest route and the statistics of the search
+  */
+  public SolveResult solve() {
+    long start = System.nanoTime();
+    while (step() == false) {
+      continue;
+    }
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, routeIndices(), finished, expanded, visitedCount, 0, elapsed);
+  }
+
+  /**  Visulaises current route solving state. Cells on the route to the jump point
+  *    expanded last are drawn as *, and other jump points the search has reached as -
+  *    @return a String of the current route solving state
+  */
+  public String toString() {
+    BitSet route = new BitSet(cells.length);
+    for (int index : routeIndices()) {
+      route.set(grid.padded(index));
+    }
+    return grid.render(cell -> {
+      if (route.get(cell) == true && grid.isExit(cell) == false) {
+        return '*';
+      } else if ((cells[cell] & SEEN) != 0 && grid.isExit(cell) == false) {
+        return '-';
+      }
+      return 0;
+    });
+  }
+
+}
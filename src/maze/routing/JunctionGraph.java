@@ -0,0 +1,272 @@
+package maze.routing;
+
+import maze.Maze;
+import maze.Tile;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**  The maze boiled down to a graph of the cells where something happens: junctions,
+*    dead ends, the entrance and the exit. Every run of corridor between two of them
+*    becomes one edge, weighted by its length. Building the graph walks every corridor
+*    once; after that, shortest routes are found by Dijkstra's algorithm over the
+*    junctions alone, and the corridors are only walked again to turn a route back into
+*    cells when it is asked for. Build one JunctionGraph per maze and reuse it for every
+*    query on that maze.
+*    The edges are held in compressed sparse row form: the edges leaving junction n are
+*    positions edgeStarts[n] to edgeStarts[n + 1] - 1 of the edge arrays
+*    @author Ashreen Kaur
+*/
+public class JunctionGraph {
+
+  private Maze maze;
+  private PaddedGrid grid;
+  private int[] offsets;
+  private BitSet isJunction;
+  private int[] junctionCells;
+  private int[] edgeStarts;
+  private int[] edgeTargets;
+  private int[] edgeLengths;
+  private byte[] edgeDirections;
+
+  private int[] distances;
+  private int[] parentEdges;
+  private IntHeap open;
+
+  /**  Constructor to create a JunctionGraph, walking every corridor of the maze
+  *    @param mazeObj: the maze to build the graph of
+  */
+  public JunctionGraph(Maze mazeObj) {
+    maze = mazeObj;
+    grid = new PaddedGrid(maze);
+    offsets = grid.offsets();
+    findJunctions();
+    linkJunctions();
+
+    distances = new int[junctionCells.length];
+    parentEdges = new int[junctionCells.length];
+    open = new IntHeap(junctionCells.length);
+  }
+
+  private void findJunctions() {
+    byte[] cells = grid.cells;
+    isJunction = new BitSet(cells.length);
+    int count = 0;
+    for (int cell=0; cell<cells.length; cell++) {
+      if (grid.isNavigable(cell) && (degreeOf(cell) != 2 || isEnd(cell))) {
+        isJunction.set(cell);
+        count = count + 1;
+      }
+    }
+
+    junctionCells = new int[count];
+    edgeStarts = new int[count + 1];
+    int junction = 0;
+    for (int cell = isJunction.nextSetBit(0); cell >= 0; cell = isJunction.nextSetBit(cell + 1)) {
+      junctionCells[junction] = cell;
+      edgeStarts[junction + 1] = edgeStarts[junction] + degreeOf(cell);
+      junction = junction + 1;
+    }
+  }
+
+  private int degreeOf(int cell) {
+    int degree = 0;
+    for (int offset : offsets) {
+      if (grid.isNavigable(cell + offset)) {
+        degree = degree + 1;
+      }
+    }
+    return degree;
+  }
+
+  private boolean isEnd(int cell) {
+    int type = grid.cells[cell] & PaddedGrid.TYPE_MASK;
+    return type == Tile.Type.ENTRANCE.ordinal() || type == Tile.Type.EXIT.ordinal();
+  }
+
+  private void linkJunctions() {
+    int edges = edgeStarts[junctionCells.length];
+    edgeTargets = new int[edges];
+    edgeLengths = new int[edges];
+    edgeDirections = new byte[edges];
+
+    int edge = 0;
+    for (int junction=0; junction<junctionCells.length; junction++) {
+      int cell = junctionCells[junction];
+      for (int direction=0; direction<4; direction++) {
+        if (grid.isNavigable(cell + offsets[direction]) == false) {
+          continue;
+        }
+        int length = 0;
+        int previous = cell;
+        int current = cell + offsets[direction];
+        while (true) {
+          length = length + 1;
+          if (isJunction.get(current)) {
+            break;
+          }
+          int next = onwards(current, previous);
+          previous = current;
+          current = next;
+        }
+        edgeTargets[edge] = junctionOf(current);
+        edgeLengths[edge] = length;
+        edgeDirections[edge] = (byte) direction;
+        edge = edge + 1;
+      }
+    }
+  }
+
+  // the way on from a corridor cell, which has exactly two open neighbours
+  private int onwards(int cell, int previous) {
+    for (int offset : offsets) {
+      int next = cell + offset;
+      if (next != previous && grid.isNavigable(next)) {
+        return next;
+      }
+    }
+    return previous;
+  }
+
+  private int junctionOf(int cell) {
+    return Arrays.binarySearch(junctionCells, cell);
+  }
+
+  /**  Gets the number of junctions, dead ends and ends in the graph
+  *    @return Returns the number of graph nodes
+  */
+  public int getJunctionCount() {
+    return junctionCells.length;
+  }
+
+  /**  Gets the number of corridors in the graph, counting each once from either end
+  *    @return Returns the number of graph edges
+  */
+  public int getEdgeCount() {
+    return edgeTargets.length;
+  }
+
+  /**  Checks if a cell is a node of the graph, which routes can start and end at
+  *    @param index: position of the cell, see Maze.indexAt
+  *    @return true if the cell is a junction, a dead end, the entrance or the exit
+  */
+  public boolean isJunction(int index) {
+    return isJunction.get(grid.padded(index));
+  }
+
+  /**  Finds a shortest route from the entrance to the exit
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns the route and the statistics of the search
+  */
+  public SolveResult solve() {
+    return solve(maze.getEntranceIndex(), maze.getExitIndex());
+  }
+
+  /**  Finds a shortest route between two nodes of the graph. The steps of the result
+  *    are the number of junctions settled, and the route is only walked out into cells
+  *    when it is asked for
+  *    @param fromIndex: position of the cell to start at, see Maze.indexAt
+  *    @param toIndex: position of the cell to finish at
+  *    @throws java.lang.IllegalArgumentException if either cell is not a node of the graph
+  *    @throws maze.routing.NoRouteFoundException if there is no route between the cells
+  *    @return Returns the route and the statistics of the search
+  */
+  public SolveResult solve(int fromIndex, int toIndex) {
+    long start = System.nanoTime();
+    int from = junctionOf(grid.padded(fromIndex));
+    int to = junctionOf(grid.padded(toIndex));
+    if (from < 0 || to < 0 || isJunction(fromIndex) == false || isJunction(toIndex) == false) {
+      throw new IllegalArgumentException("Routes must start and end at a junction");
+    }
+
+    Arrays.fill(distances, Integer.MAX_VALUE);
+    distances[from] = 0;
+    parentEdges[from] = -1;
+    while (open.isEmpty() == false) {
+      open.pop();
+    }
+    open.push(from, 0);
+    long settled = 0;
+    long reached = 1;
+
+    while (open.isEmpty() == false) {
+      int junction = open.pop();
+      settled = settled + 1;
+      if (junction == to) {
+        break;
+      }
+      for (int edge=edgeStarts[junction]; edge<edgeStarts[junction + 1]; edge++) {
+        int target = edgeTargets[edge];
+        int distance = distances[junction] + edgeLengths[edge];
+        if (distance < distances[target]) {
+          if (distances[target] == Integer.MAX_VALUE) {
+            reached = reached + 1;
+          }
+          distances[target] = distance;
+          parentEdges[target] = edge;
+          open.push(target, distance);
+        }
+      }
+    }
+    if (distances[to] == Integer.MAX_VALUE) {
+      throw new NoRouteFoundException();
+    }
+
+    int[] edges = edgesTo(from, to);
+    int length = distances[to] + 1;
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, () -> walk(junctionCells[from], edges, length), length, true,
+        settled, reached, elapsed);
+  }
+
+  private int[] edgesTo(int from, int to) {
+    int count = 0;
+    for (int junction = to; junction != from; junction = sourceOf(parentEdges[junction])) {
+      count = count + 1;
+    }
+    int[] edges = new int[count];
+    int junction = to;
+    for (int i=count-1; i>=0; i--) {
+      edges[i] = parentEdges[junction];
+      junction = sourceOf(edges[i]);
+    }
+    return edges;
+  }
+
+  private int sourceOf(int edge) {
+    int low = 0;
+    int high = junctionCells.length - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (edgeStarts[middle] <= edge) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  private int[] walk(int startCell, int[] edges, int length) {
+    int[] route = new int[length];
+    route[0] = grid.unpadded(startCell);
+    int position = 1;
+    int cell = startCell;
+    for (int edge : edges) {
+      int previous = cell;
+      int current = cell + offsets[edgeDirections[edge]];
+      for (int i=0; i<edgeLengths[edge]; i++) {
+        route[position] = grid.unpadded(current);
+        position = position + 1;
+        if (i + 1 < edgeLengths[edge]) {
+          int next = onwards(current, previous);
+          previous = current;
+          current = next;
+        }
+      }
+      cell = current;
+    }
+    return route;
+  }
+
+}
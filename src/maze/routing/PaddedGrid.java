@@ -0,0 +1,132 @@
+package maze.routing;
+
+import maze.ChunkCacheStats;
+import maze.Maze;
+import maze.Tile;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**  Copy of the cells of a maze with a border of walls around it, one byte per cell.
+*    The low two bits of a cell hold its Type and the rest are free for the flags of
+*    the search using the grid. Every cell of the maze has four neighbours in the grid,
+*    so searches can step between cells without checking bounds
+*    @author Ashreen Kaur
+*/
+class PaddedGrid implements Serializable {
+
+  static final int TYPE_MASK = 3;
+  static final int WALL = Tile.Type.WALL.ordinal();
+  static final int EXIT = Tile.Type.EXIT.ordinal();
+  // some virtual machines cannot allocate an array quite as long as Integer.MAX_VALUE
+  static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+  private static final Tile.Type[] TYPES = Tile.Type.values();
+
+  final byte[] cells;
+  final int width;
+  final int height;
+  final int paddedWidth;
+
+  /**  Constructor to create a PaddedGrid. A maze read from a chunk file is copied one
+  *    chunk at a time, so each chunk is read from disk once however small its cache
+  *    @param maze: the maze to copy the cells of
+  *    @throws java.lang.IllegalArgumentException if the maze and its border hold more
+  *    cells than fit in one array
+  */
+  PaddedGrid(Maze maze) {
+    width = maze.getWidth();
+    height = maze.getHeight();
+    long size = ((long) width + 2) * ((long) height + 2);
+    if (size > MAX_CELLS) {
+      throw new IllegalArgumentException("A " + width + "x" + height + " maze is too large to route over in memory");
+    }
+    paddedWidth = width + 2;
+    cells = new byte[(int) size];
+    Arrays.fill(cells, (byte) WALL);
+
+    ChunkCacheStats chunks = maze.getChunkCacheStats();
+    int blockWidth = Math.max(1, chunks == null ? width : chunks.getChunkSize());
+    int blockHeight = Math.max(1, chunks == null ? height : chunks.getChunkSize());
+    for (int top=0; top<height; top+=blockHeight) {
+      for (int left=0; left<width; left+=blockWidth) {
+        for (int row=top; row<Math.min(height, top + blockHeight); row++) {
+          for (int column=left; column<Math.min(width, left + blockWidth); column++) {
+            cells[(row + 1) * paddedWidth + column + 1] = (byte) maze.typeAt((long) row*width + column).ordinal();
+          }
+        }
+      }
+    }
+  }
+
+  /**  Gets the grid offsets of the neighbours of a cell
+  *    @return Returns the offsets to the north, east, south and west, in that order
+  */
+  int[] offsets() {
+    return new int[]{-paddedWidth, 1, paddedWidth, -1};
+  }
+
+  /**  Converts a cell index of the maze into the matching cell of the grid
+  *    @param index: cell index in the maze
+  *    @return Returns the cell in the grid
+  */
+  int padded(int index) {
+    return (index / width + 1) * paddedWidth + index % width + 1;
+  }
+
+  /**  Converts a cell of the grid back into a cell index of the maze
+  *    @param cell: cell in the grid, not on the border
+  *    @return Returns the cell index in the maze
+  */
+  int unpadded(int cell) {
+    return (cell / paddedWidth - 1) * width + cell % paddedWidth - 1;
+  }
+
+  /**  Checks if a cell can be walked on
+  *    @param cell: cell in the grid
+  *    @return true if the cell is not a wall
+  */
+  boolean isNavigable(int cell) {
+    return (cells[cell] & TYPE_MASK) != WALL;
+  }
+
+  /**  Checks if a cell is the exit
+  *    @param cell: cell in the grid
+  *    @return true if the cell is the exit
+  */
+  boolean isExit(int cell) {
+    return (cells[cell] & TYPE_MASK) == EXIT;
+  }
+
+  /**  Draws the grid the way route finders show their state, one row per line with
+  *    the row number in front and the column numbers underneath
+  *    @param mark: gives the character to draw for a grid cell, or 0 to draw its Type
+  *    @return a String of the drawn grid
+  */
+  String render(IntUnaryOperator mark) {
+    StringBuilder mazeString = new StringBuilder();
+    StringBuilder bottomAxis = new StringBuilder();
+
+    for (int i=0; i<height; i++) {
+      mazeString.append(i).append(" ");
+
+      for (int j=0; j<width; j++) {
+        int cell = (i + 1) * paddedWidth + j + 1;
+        int symbol = mark.applyAsInt(cell);
+        if (symbol == 0) {
+          symbol = TYPES[cells[cell] & TYPE_MASK].getSymbol();
+        }
+        mazeString.append(" ").append((char) symbol);
+      }
+      mazeString.append("\n");
+    }
+
+    for (int i=0; i<width; i++){
+      bottomAxis.append(i).append(" ");
+    }
+
+    mazeString.append("\n").append("   ").append(bottomAxis).append("\n");
+    return mazeString.toString();
+  }
+}
@@ -0,0 +1,263 @@
+package maze.routing;
+
+import maze.Maze;
+import maze.Tile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**  Class to create ParallelBreadthFirstRouteFinder objects. Like
+*    BreadthFirstRouteFinder it searches outwards from the entrance one layer at a
+*    time and finds a shortest route, but each layer is split into blocks that are
+*    searched at once on a fork-join pool.
+*    Cells are claimed in a bitmap of longs, one bit per cell, by compare-and-set, so
+*    only one block can claim a cell and record the direction it was reached from.
+*    Each block collects the cells it claimed in its own array, and these are joined
+*    into the next layer once the whole layer is done. Layers smaller than a block are
+*    searched on the calling thread, since the pool would only slow them down
+*    @author Ashreen Kaur
+*/
+public class ParallelBreadthFirstRouteFinder {
+
+  private static final int PARENT_SHIFT = 4;
+  private static final int PARENT_MASK = 3 << PARENT_SHIFT;
+  private static final int BLOCK_SIZE = 1024;
+
+  private Maze maze;
+  private PaddedGrid grid;
+  private byte[] cells;
+  private int[] offsets;
+  private ForkJoinPool pool;
+  private AtomicLongArray claimed;
+  private int entrance;
+  private int exit;
+  private boolean finished;
+  private long expanded;
+  private long visitedCount;
+  private int levels;
+
+  /**  Constructor to create ParallelBreadthFirstRouteFinder objects that search on the
+  *    common fork-join pool
+  *    @param mazeObj: the maze the ParallelBreadthFirstRouteFinder object will try to solve
+  */
+  public ParallelBreadthFirstRouteFinder(Maze mazeObj) {
+    this(mazeObj, ForkJoinPool.commonPool());
+  }
+
+  /**  Constructor to create ParallelBreadthFirstRouteFinder objects
+  *    @param mazeObj: the maze the ParallelBreadthFirstRouteFinder object will try to solve
+  *    @param searchPool: the pool to search each layer on
+  */
+  public ParallelBreadthFirstRouteFinder(Maze mazeObj, ForkJoinPool searchPool) {
+    maze = mazeObj;
+    pool = searchPool;
+    grid = new PaddedGrid(maze);
+    cells = grid.cells;
+    offsets = grid.offsets();
+    claimed = new AtomicLongArray((cells.length + 63) >>> 6);
+    entrance = grid.padded(maze.getTileIndex(maze.getEntrance()));
+    exit = grid.padded(maze.getTileIndex(maze.getExit()));
+  }
+
+  // sets the bit of a cell, returning false if it was already set
+  private boolean claim(int cell) {
+    int word = cell >>> 6;
+    long bit = 1L << cell;
+    long old = claimed.get(word);
+    while ((old & bit) == 0) {
+      if (claimed.compareAndSet(word, old, old | bit)) {
+        return true;
+      }
+      old = claimed.get(word);
+    }
+    return false;
+  }
+
+  private boolean isClaimed(int cell) {
+    return (claimed.get(cell >>> 6) & 1L << cell) != 0;
+  }
+
+  /**  Gets Maze object
+  *    @return Returns Maze object we are trying to find a route for
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Returns a boolean value which tells us if the route is complete
+  *    @return Returns a boolean value, true if a route has been found and false if it has not
+  */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**  Checks if the search has reached a Tile
+  *    @param tile: Tile of the maze being solved
+  *    @return true if Tile object has been reached, and false if it has not
+  */
+  public boolean isVisited(Tile tile) {
+    return isClaimed(grid.padded(maze.getTileIndex(tile)));
+  }
+
+  /**  Gets the number of layers searched, which is the length of the route found less one
+  *    @return Returns the layer count
+  */
+  public int getLevels() {
+    return levels;
+  }
+
+  /**  Gets the route found by solve
+  *    @return Returns a list of the Tiles on the route, or an empty list before solve has run
+  */
+  public List<Tile> getRoute() {
+    List<Tile> routeList = new ArrayList<Tile>();
+    if (finished == true) {
+      for (int index : routeIndices()) {
+        routeList.add(maze.tileAt(index));
+      }
+    }
+    return routeList;
+  }
+
+  private int[] routeIndices() {
+    int[] route = new int[levels + 1];
+    int cell = exit;
+    for (int i=levels; i>=0; i--) {
+      route[i] = grid.unpadded(cell);
+      if (i > 0) {
+        cell = cell - offsets[(cells[cell] & PARENT_MASK) >> PARENT_SHIFT];
+      }
+    }
+    return route;
+  }
+
+  /**  Searches the maze one layer at a time until the exit is reached. The steps of the
+  *    result are the number of cells expanded
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns a shortest route and the statistics of the search
+  */
+  public SolveResult solve() {
+    long start = System.nanoTime();
+    if (finished == false) {
+      claim(entrance);
+      visitedCount = 1;
+      int[] layer = new int[]{entrance};
+      int size = 1;
+      while (isClaimed(exit) == false) {
+        if (size == 0) {
+          throw new NoRouteFoundException();
+        }
+        int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[][] found = new int[blocks][];
+        int[] counts = new int[blocks];
+        if (blocks == 1) {
+          expand(layer, 0, size, found, counts, 0);
+        } else {
+          pool.invoke(new LayerTask(layer, size, 0, blocks, found, counts));
+        }
+
+        int nextSize = 0;
+        for (int count : counts) {
+          nextSize = nextSize + count;
+        }
+        int[] next = new int[nextSize];
+        int position = 0;
+        for (int block=0; block<blocks; block++) {
+          System.arraycopy(found[block], 0, next, position, counts[block]);
+          position = position + counts[block];
+        }
+        expanded = expanded + size;
+        visitedCount = visitedCount + nextSize;
+        levels = levels + 1;
+        layer = next;
+        size = nextSize;
+      }
+      finished = true;
+    }
+    long elapsed = System.nanoTime() - start;
+    return new SolveResult(maze, routeIndices(), finished, expanded, visitedCount, 0, elapsed);
+  }
+
+  // expands cells first to end-1 of a layer, keeping the cells claimed as block number block
+  private void expand(int[] layer, int first, int end, int[][] found, int[] counts, int block) {
+    int[] claimedHere = new int[Math.max(16, end - first)];
+    int count = 0;
+    for (int i=first; i<end; i++) {
+      int cell = layer[i];
+      for (int direction=0; direction<4; direction++) {
+        int next = cell + offsets[direction];
+        if ((cells[next] & PaddedGrid.TYPE_MASK) == PaddedGrid.WALL || isClaimed(next) || claim(next) == false) {
+          continue;
+        }
+        cells[next] = (byte) ((cells[next] & ~PARENT_MASK) | direction << PARENT_SHIFT);
+        if (count == claimedHere.length) {
+          claimedHere = Arrays.copyOf(claimedHere, count * 2);
+        }
+        claimedHere[count] = next;
+        count = count + 1;
+      }
+    }
+    found[block] = claimedHere;
+    counts[block] = count;
+  }
+
+  /**  Visulaises the route found. Cells on the route are drawn as *, and other cells
+  *    the search has reached as -
+  *    @return a String of the current route solving state
+  */
+  public String toString() {
+    BitSet onRoute = new BitSet(cells.length);
+    if (finished == true) {
+      for (int index : routeIndices()) {
+        onRoute.set(grid.padded(index));
+      }
+    }
+    return grid.render(cell -> {
+      if (grid.isExit(cell) == true) {
+        return 0;
+      } else if (onRoute.get(cell) == true) {
+        return '*';
+      } else if (isClaimed(cell) == true) {
+        return '-';
+      }
+      return 0;
+    });
+  }
+
+  /**  Expands a run of blocks of one layer, splitting the run in half until it is a
+  *    single block
+  */
+  private class LayerTask extends RecursiveAction {
+    private int[] layer;
+    private int size;
+    private int firstBlock;
+    private int endBlock;
+    private int[][] found;
+    private int[] counts;
+
+    private LayerTask(int[] cellsOfLayer, int layerSize, int first, int end, int[][] foundCells, int[] foundCounts) {
+      layer = cellsOfLayer;
+      size = layerSize;
+      firstBlock = first;
+      endBlock = end;
+      found = foundCells;
+      counts = foundCounts;
+    }
+
+    protected void compute() {
+      if (endBlock - firstBlock > 1) {
+        int middle = (firstBlock + endBlock) >>> 1;
+        invokeAll(new LayerTask(layer, size, firstBlock, middle, found, counts),
+            new LayerTask(layer, size, middle, endBlock, found, counts));
+        return;
+      }
+      expand(layer, firstBlock * BLOCK_SIZE, Math.min(size, endBlock * BLOCK_SIZE), found, counts, firstBlock);
+    }
+  }
+
+}
@@ -1,9 +1,8 @@
 package maze.routing;
 import maze.Maze;
 import maze.Tile;
-import maze.Maze.Direction;
 
-import java.util.Stack;
+import java.time.Duration;
 import java.util.List;
 import java.util.ArrayList;
 import java.io.Serializable;
@@ -18,23 +17,66 @@ import java.io.IOException;
 import java.lang.ClassNotFoundException;
 import maze.routing.NoRouteFoundException;
 
-/**  Class to create RouteFinder objects
+/**  Class to create RouteFinder objects. The visited and dead end state of the search
+*    is kept by the RouteFinder itself, so any number of RouteFinders can work on the
+*    same Maze at once.
+*    The cells of the maze are copied into a PaddedGrid when the RouteFinder is
+*    created, and the search flags are kept in the same bytes as the Types, so a step
+*    only reads the cells next to the top of the route
 *    @author Ashreen Kaur
 */
 public class RouteFinder implements Serializable{
 
+  private static final int TYPE_MASK = PaddedGrid.TYPE_MASK;
+  private static final int WALL = PaddedGrid.WALL;
+  private static final int EXIT = PaddedGrid.EXIT;
+  private static final int VISITED = 4;
+  private static final int DEAD_END = 8;
+
   private Maze maze;
-  private Stack<Tile> route;
+  private int[] route;
+  private int routeSize;
   private boolean finished;
+  private PaddedGrid grid;
+  private byte[] cells;
+  private int[] directions;
+  private int[] cornerDirections;
+  private int corner;
+  private long steps;
+  private long visitedCount;
+  private long deadEndCount;
 
   /**  Contructor to create RouteFinder objects
   *    @param mazeObj: the maze the RouteFinder object will try to solve
+  *    @throws java.lang.IllegalArgumentException if the maze has too many cells to copy
+  *    into one array
   */
   public RouteFinder(Maze mazeObj) {
     maze = mazeObj;
-    route = new Stack<Tile>();
-    route.push(maze.getEntrance());
-    maze.getEntrance().setVisited(true);
+    grid = new PaddedGrid(maze);
+    cells = grid.cells;
+
+    // neighbours are tried north, east, south, west, except in the bottom right
+    // corner where the search has always tried west before north
+    directions = grid.offsets();
+    cornerDirections = new int[]{directions[3], directions[0]};
+    corner = grid.padded(maze.getWidth() * maze.getHeight() - 1);
+
+    route = new int[16];
+    int entrance = grid.padded(maze.getTileIndex(maze.getEntrance()));
+    push(entrance);
+    cells[entrance] |= VISITED;
+    visitedCount = 1;
+  }
+
+  private void push(int cell) {
+    if (routeSize == route.length) {
+      int[] grown = new int[routeSize * 2];
+      System.arraycopy(route, 0, grown, 0, routeSize);
+      route = grown;
+    }
+    route[routeSize] = cell;
+    routeSize = routeSize + 1;
   }
 
   /**  Gets Maze object
@@ -49,11 +91,10 @@ public class RouteFinder implements Serializable{
   *    @return Returns ArrayListe object containing the current route (unifinished or finished)
   */
   public List<Tile> getRoute() {
-    int sizeOfStack = route.size();
-    List<Tile> routeList = new ArrayList<Tile>();
+    List<Tile> routeList = new ArrayList<Tile>(routeSize);
 
-    for (int i=0; i<sizeOfStack; i++) {
-      routeList.add(route.get(i));
+    for (int i=0; i<routeSize; i++) {
+      routeList.add(maze.tileAt(grid.unpadded(route[i])));
     }
     return routeList;
 
@@ -66,6 +107,22 @@ public class RouteFinder implements Serializable{
     return finished;
   }
 
+  /**  Checks if a Tile has already been visited by this RouteFinder
+  *    @param tile: Tile of the maze being solved
+  *    @return true if Tile object has been visited, and false if it has not been visited
+  */
+  public boolean isVisited(Tile tile) {
+    return (cells[grid.padded(maze.getTileIndex(tile))] & VISITED) != 0;
+  }
+
+  /**  Checks if this RouteFinder has found a Tile to be a dead end
+  *    @param tile: Tile of the maze being solved
+  *    @return true if Tile object is a dead end, and false if it is not a dead end
+  */
+  public boolean isDeadEnd(Tile tile) {
+    return (cells[grid.padded(maze.getTileIndex(tile))] & DEAD_END) != 0;
+  }
+
   /**  Reads an object file to retrive  RouteFinder object
   *    @param mazeFile: name of the object file we are reading from
   *    @return Returns a RouteFinder object read from the file
@@ -104,356 +161,119 @@ public class RouteFinder implements Serializable{
     if (finished == true) {
       return finished;
     }
+    return advance();
+  }
 
-    Direction[] directions = new Direction[]{Maze.Direction.NORTH, Maze.Direction.EAST, Maze.Direction.SOUTH, Maze.Direction.WEST};
-    int yValue = maze.getTileLocation(route.peek()).getX();
-    int xValue = maze.getTileLocation(route.peek()).getY();
-    xValue = (maze.getTiles().size() - 1) - xValue;
+  /**  Runs the search until the route reaches the exit
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns the finished route and the statistics of the search
+  */
+  public SolveResult solve() {
+    return run(Long.MAX_VALUE, Long.MAX_VALUE);
+  }
 
-    int maximumX = maze.getTiles().size()-1;
-    int maximumY = maze.getTiles().get(0).size()-1;
+  /**  Runs up to n steps of the search, stopping early if the route is complete
+  *    @param n: the largest number of steps to take
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns the route so far and the statistics of the search
+  */
+  public SolveResult stepN(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("Cannot take " + n + " steps");
+    }
+    return run(n, Long.MAX_VALUE);
+  }
 
+  /**  Runs the search until the route is complete or the time budget is spent. The
+  *    clock is only read every 1024 steps, so the budget may be overrun slightly
+  *    @param budget: how long the search may run for
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns the route so far and the statistics of the search
+  */
+  public SolveResult solveWithin(Duration budget) {
+    long nanos = Long.MAX_VALUE;
+    if (budget.compareTo(Duration.ofNanos(Long.MAX_VALUE)) < 0) {
+      nanos = budget.toNanos();
+    }
+    return run(Long.MAX_VALUE, nanos);
+  }
 
-    if (yValue == 0 || yValue == maximumY || xValue == 0 || xValue == maximumX) {
+  private SolveResult run(long maxSteps, long budgetNanos) {
+    long start = System.nanoTime();
+    long taken = 0;
+    while (finished == false && taken < maxSteps) {
+      advance();
+      taken = taken + 1;
+      if ((taken & 1023) == 0 && System.nanoTime() - start >= budgetNanos) {
+        break;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+
+    int[] indices = new int[routeSize];
+    for (int i=0; i<routeSize; i++) {
+      indices[i] = grid.unpadded(route[i]);
+    }
+    return new SolveResult(maze, indices, finished, steps, visitedCount, deadEndCount, elapsed);
+  }
 
-      return stepEdge(xValue, yValue, maximumX, maximumY);
-    } else {
+  private boolean advance() {
+    steps = steps + 1;
+    int current = route[routeSize - 1];
+    int[] order = directions;
+    if (current == corner) {
+      order = cornerDirections;
+    }
 
-      for (Direction dir : directions) {
-        Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
+    for (int offset : order) {
+      int next = current + offset;
+      int cell = cells[next];
 
-        if (adjTile.getType() == Tile.Type.EXIT) {
-          route.push(adjTile);
-          finished = true;
-          return true;
-        }
-        if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-          route.push(adjTile);
-          adjTile.setVisited(true);
-          return false;
-        }
+      if ((cell & TYPE_MASK) == EXIT) {
+        push(next);
+        finished = true;
+        return true;
       }
-
-      for (Direction dir : directions) {
-        Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-        if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-          Tile deadEndTile = route.pop();
-          deadEndTile.setDeadEnd(true);
-          return false;
-        }
+      if ((cell & TYPE_MASK) != WALL && (cell & VISITED) == 0) {
+        push(next);
+        cells[next] |= VISITED;
+        visitedCount = visitedCount + 1;
+        return false;
       }
+    }
 
-      throw new NoRouteFoundException();
+    for (int offset : order) {
+      int cell = cells[current + offset];
+      if ((cell & DEAD_END) == 0 && (cell & TYPE_MASK) != WALL) {
+        routeSize = routeSize - 1;
+        cells[current] |= DEAD_END;
+        deadEndCount = deadEndCount + 1;
+        return false;
+      }
     }
+
+    throw new NoRouteFoundException();
   }
 
   /**  Visulaises current route solving state
   *    @return a String of the current route solving state
   */
   public String toString() {
-    String mazeString = "";
-    int gridNumber = 0;
-    String bottomAxis = "";
-
-    for (int i=0; i < maze.getTiles().size(); i++) {
-      String line = "";
-      List<Tile> innerList = maze.getTiles().get(i);
-
-      for (int j=0; j<innerList.size(); j++) {
-        if (j == 0) {
-          if (innerList.get(j).isDeadEnd() == true && innerList.get(j).alreadyVisited() == true) {
-            line =  String.valueOf(gridNumber) + "  " + "-";
-          } else if (innerList.get(j).isDeadEnd() == false && innerList.get(j).alreadyVisited() == true) {
-            line =  String.valueOf(gridNumber) + "  " + "*";
-          } else {
-            line =  String.valueOf(gridNumber) + "  " + (innerList.get(j).toString());
-          }
-        } else {
-
-          if (innerList.get(j).isDeadEnd() == true && innerList.get(j).alreadyVisited() == true) {
-            line = line + " " + "-";
-          } else if (innerList.get(j).isDeadEnd() == false && innerList.get(j).alreadyVisited() == true) {
-            line = line + " " + "*";
-          } else {
-            line = line + " " + (innerList.get(j).toString());
-          }
-        }
+    return grid.render(cell -> {
+      if ((cells[cell] & DEAD_END) != 0 && (cells[cell] & VISITED) != 0) {
+        return '-';
+      } else if ((cells[cell] & VISITED) != 0) {
+        return '*';
       }
-
-      gridNumber = gridNumber + 1;
-      line = line + "\n";
-      mazeString = mazeString + line;
-    }
-
-    for (int i=0; i<maze.getTiles().get(0).size(); i++){
-      bottomAxis = bottomAxis + String.valueOf(i) + " ";
-    }
-
-    mazeString = mazeString + "\n" + "   " + bottomAxis + "\n";
-    return mazeString;
-
-  }
-
-
-  /**  Helper method for step. Solves the maze when current tile is on any of the maze edges
-  *    @param x indicates a specific row of the maze
-  *    @param y indicates specific column of the maze
-  *    @param maxX indicates the length of the maze
-  *    @param maxY indicates the width of the maze
-  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
-  *    @return Returns true if the route is complete and false if is not
-  */
-  public boolean stepEdge(int x, int y, int maxX, int maxY) {
-
-   if (x==0 && y==0) {
-     Direction[] topLeft = new Direction[]{Maze.Direction.EAST, Maze.Direction.SOUTH};
-
-     for (Direction dir : topLeft) {
-       Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
-
-       if (adjTile.getType() == Tile.Type.EXIT) {
-
-         route.push(adjTile);
-         finished = true;
-         return true;
-       }
-       if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-         route.push(adjTile);
-         adjTile.setVisited(true);
-         return false;
-       }
-     }
-
-     for (Direction dir : topLeft) {
-       Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-       if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-         Tile deadEndTile = route.pop();
-         deadEndTile.setDeadEnd(true);
-         return false;
-       }
-     }
-
-     throw new NoRouteFoundException();
-   }
-
-   if (x==maxX && y==0) {
-     Direction[] bottomLeft = new Direction[]{Maze.Direction.NORTH, Maze.Direction.EAST};
-
-     for (Direction dir : bottomLeft) {
-       Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
-
-       if (adjTile.getType() == Tile.Type.EXIT) {
-
-         route.push(adjTile);
-         finished = true;
-         return true;
-       }
-       if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-         route.push(adjTile);
-         adjTile.setVisited(true);
-         return false;
-       }
-     }
-
-     for (Direction dir : bottomLeft) {
-       Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-       if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-         Tile deadEndTile = route.pop();
-         deadEndTile.setDeadEnd(true);
-         return false;
-       }
-     }
-     throw new NoRouteFoundException();
-   }
-
-   if (x==0 && y==maxY) {
-     Direction[] topRight = new Direction[]{Maze.Direction.SOUTH, Maze.Direction.WEST};
-
-     for (Direction dir : topRight) {
-       Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
-
-       if (adjTile.getType() == Tile.Type.EXIT) {
-
-         route.push(adjTile);
-         finished = true;
-         return true;
-       }
-       if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-         route.push(adjTile);
-         adjTile.setVisited(true);
-         return false;
-       }
-     }
-
-     for (Direction dir : topRight) {
-       Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-       if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-         Tile deadEndTile = route.pop();
-         deadEndTile.setDeadEnd(true);
-         return false;
-       }
-     }
-     throw new NoRouteFoundException();
-   }
-
-   if (x==maxX && y==maxY) {
-     Direction[] bottomRight = new Direction[]{Maze.Direction.WEST, Maze.Direction.NORTH};
-
-     for (Direction dir : bottomRight) {
-       Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
-
-       if (adjTile.getType() == Tile.Type.EXIT) {
-
-         route.push(adjTile);
-         finished = true;
-         return true;
-       }
-       if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-         route.push(adjTile);
-         adjTile.setVisited(true);
-         return false;
-       }
-     }
-
-     for (Direction dir : bottomRight) {
-       Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-       if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-         Tile deadEndTile = route.pop();
-         deadEndTile.setDeadEnd(true);
-         return false;
-       }
-     }
-     throw new NoRouteFoundException();
-   }
-
-
-   if (y == 0) {
-     Direction[] noWestDirections = new Direction[]{Maze.Direction.NORTH, Maze.Direction.EAST, Maze.Direction.SOUTH};
-
-     for (Direction dir : noWestDirections) {
-       Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
-
-       if (adjTile.getType() == Tile.Type.EXIT) {
-
-         route.push(adjTile);
-         finished = true;
-         return true;
-       }
-       if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-         route.push(adjTile);
-         adjTile.setVisited(true);
-         return false;
-       }
-     }
-
-     for (Direction dir : noWestDirections) {
-       Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-       if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-         Tile deadEndTile = route.pop();
-         deadEndTile.setDeadEnd(true);
-         return false;
-       }
-     }
-     throw new NoRouteFoundException();
-
-   }
-   if (y == maxY) {
-     Direction[] noEastDirections = new Direction[]{Maze.Direction.NORTH, Maze.Direction.SOUTH, Maze.Direction.WEST};
-
-     for (Direction dir : noEastDirections) {
-       Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
-
-       if (adjTile.getType() == Tile.Type.EXIT) {
-
-         route.push(adjTile);
-         finished = true;
-
-         return true;
-       }
-       if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-         route.push(adjTile);
-         adjTile.setVisited(true);
-         return false;
-       }
-     }
-
-     for (Direction dir : noEastDirections) {
-       Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-       if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-         Tile deadEndTile = route.pop();
-         deadEndTile.setDeadEnd(true);
-         return false;
-       }
-     }
-     throw new NoRouteFoundException();
-   }
-
-   if (x == 0) {
-     Direction[] noNorthDirections = new Direction[]{Maze.Direction.EAST, Maze.Direction.SOUTH, Maze.Direction.WEST};
-
-     for (Direction dir : noNorthDirections) {
-       Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
-
-       if (adjTile.getType() == Tile.Type.EXIT) {
-
-         route.push(adjTile);
-         finished = true;
-         return true;
-       }
-       if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-         route.push(adjTile);
-         adjTile.setVisited(true);
-         return false;
-       }
-     }
-
-     for (Direction dir : noNorthDirections) {
-       Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-       if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-         Tile deadEndTile = route.pop();
-         deadEndTile.setDeadEnd(true);
-         return false;
-       }
-     }
-     throw new NoRouteFoundException();
-   }
-   if (x == maxX) {
-     Direction[] noSouthDirections = new Direction[]{Maze.Direction.NORTH, Maze.Direction.EAST, Maze.Direction.WEST};
-
-     for (Direction dir : noSouthDirections) {
-       Tile adjTile = maze.getAdjacentTile(route.peek(), dir);
-
-       if (adjTile.getType() == Tile.Type.EXIT) {
-
-         route.push(adjTile);
-         finished = true;
-         return true;
-       }
-       if (adjTile.isNavigable() == true && adjTile.alreadyVisited() == false) {
-         route.push(adjTile);
-         adjTile.setVisited(true);
-         return false;
-       }
-     }
-
-     for (Direction dir : noSouthDirections) {
-       Tile adjDeadTile = maze.getAdjacentTile(route.peek(), dir);
-       if (adjDeadTile.isDeadEnd() == false && adjDeadTile.isNavigable() == true) {
-         Tile deadEndTile = route.pop();
-         deadEndTile.setDeadEnd(true);
-         return false;
-       }
-     }
-     throw new NoRouteFoundException();
-    }
-    return false;
+      return 0;
+    });
   }
 
-  /**  Gets the Tile object at the top of Stack attribute 'route'
-  *    @return Returns Tile object at the top of the Stack
+  /**  Gets the Tile object at the top of the route
+  *    @return Returns Tile object at the top of the route
   */
   public Tile getTopOfStack() {
-    return route.peek();
+    return maze.tileAt(grid.unpadded(route[routeSize - 1]));
   }
 
 }
@@ -0,0 +1,148 @@
+package maze.routing;
+
+import maze.Maze;
+import maze.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**  Outcome of running a search: the route it holds and how much work it took. The
+*    route is kept as cell indices of the maze, and Tiles are only looked up when
+*    getRoute is called. Searches that do not work cell by cell can hand over a way of
+*    building the route instead, which is only run the first time the route is asked for
+*    @author Ashreen Kaur
+*/
+public class SolveResult {
+
+  private Maze maze;
+  private int[] route;
+  private Supplier<int[]> routeBuilder;
+  private int routeLength;
+  private boolean finished;
+  private long steps;
+  private long visited;
+  private long deadEnds;
+  private long elapsedNanos;
+
+  /**  Constructor to create a SolveResult. The route array is kept rather than copied
+  *    @param solvedMaze: the maze that was searched
+  *    @param routeIndices: cell indices of the route, from the entrance onwards
+  *    @param isFinished: whether the route reaches the exit
+  *    @param stepCount: number of steps the search has taken
+  *    @param visitedCount: number of cells the search has visited
+  *    @param deadEndCount: number of cells the search has found to be dead ends
+  *    @param elapsed: time spent in the call that produced the result, in nanoseconds
+  */
+  public SolveResult(Maze solvedMaze, int[] routeIndices, boolean isFinished, long stepCount,
+      long visitedCount, long deadEndCount, long elapsed) {
+    maze = solvedMaze;
+    route = routeIndices;
+    routeLength = routeIndices.length;
+    finished = isFinished;
+    steps = stepCount;
+    visited = visitedCount;
+    deadEnds = deadEndCount;
+    elapsedNanos = elapsed;
+  }
+
+  /**  Constructor to create a SolveResult whose route is built when first asked for
+  *    @param solvedMaze: the maze that was searched
+  *    @param builder: builds the cell indices of the route, from the entrance onwards
+  *    @param length: number of cells the route will have
+  *    @param isFinished: whether the route reaches the exit
+  *    @param stepCount: number of steps the search has taken
+  *    @param visitedCount: number of cells the search has visited
+  *    @param elapsed: time spent in the call that produced the result, in nanoseconds
+  */
+  SolveResult(Maze solvedMaze, Supplier<int[]> builder, int length, boolean isFinished,
+      long stepCount, long visitedCount, long elapsed) {
+    this(solvedMaze, new int[0], isFinished, stepCount, visitedCount, 0, elapsed);
+    route = null;
+    routeBuilder = builder;
+    routeLength = length;
+  }
+
+  private int[] route() {
+    if (route == null) {
+      route = routeBuilder.get();
+      routeBuilder = null;
+    }
+    return route;
+  }
+
+  /**  Gets the maze that was searched
+  *    @return Returns the Maze object
+  */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**  Checks if the route reaches the exit
+  *    @return true if the route is complete and false if the search stopped early
+  */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**  Gets the route as Tiles, from the entrance onwards
+  *    @return Returns a new list of the Tiles on the route
+  */
+  public List<Tile> getRoute() {
+    List<Tile> tiles = new ArrayList<Tile>(routeLength);
+    for (int index : route()) {
+      tiles.add(maze.tileAt(index));
+    }
+    return tiles;
+  }
+
+  /**  Gets the route as cell indices of the maze, see Maze.indexAt
+  *    @return Returns a copy of the cell indices on the route
+  */
+  public int[] getRouteIndices() {
+    return route().clone();
+  }
+
+  /**  Gets the number of tiles on the route
+  *    @return Returns the route length, counting the entrance and the exit
+  */
+  public int getRouteLength() {
+    return routeLength;
+  }
+
+  /**  Gets the number of steps the search has taken
+  *    @return Returns the step count
+  */
+  public long getSteps() {
+    return steps;
+  }
+
+  /**  Gets the number of cells the search has visited
+  *    @return Returns the visited count
+  */
+  public long getVisited() {
+    return visited;
+  }
+
+  /**  Gets the number of cells the search has found to be dead ends
+  *    @return Returns the dead end count
+  */
+  public long getDeadEnds() {
+    return deadEnds;
+  }
+
+  /**  Gets the time spent in the call that produced the result
+  *    @return Returns the time in nanoseconds
+  */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**  Summarises the result
+  *    @return a String with the route length and search statistics
+  */
+  public String toString() {
+    return String.format("finished=%b route=%d steps=%d visited=%d deadEnds=%d time=%.3fms",
+        finished, routeLength, steps, visited, deadEnds, elapsedNanos / 1e6);
+  }
+}
@@ -0,0 +1,46 @@
+package maze.routing;
+
+import maze.Maze;
+
+import java.util.Set;
+
+/**  A way of finding a route through a maze, for callers that pick how a maze is
+*    solved at run time instead of constructing a route finder themselves. The route
+*    finders of this package are registered as solvers by SolverRegistry, and other
+*    solvers can be added by naming their classes in a
+*    META-INF/services/maze.routing.Solver file on the class path. A solver needs a
+*    public constructor with no parameters, and may be asked to solve many mazes,
+*    possibly at once
+*    @author Ashreen Kaur
+*/
+public interface Solver {
+
+  /**  Gets the name the solver is picked by, such as "bfs"
+  *    @return Returns the name of the solver
+  */
+  String getName();
+
+  /**  Gets what the solver can promise about its routes and how it runs
+  *    @return Returns the capabilities of the solver
+  */
+  Set<Capability> getCapabilities();
+
+  /**  Finds a route from the entrance to the exit of a maze
+  *    @param maze: the maze to solve
+  *    @throws maze.routing.NoRouteFoundException if maze cannot be solved
+  *    @return Returns the route and the statistics of the search
+  */
+  SolveResult solve(Maze maze);
+
+  /**  Inner enum class containing the Capabilities a solver can have  */
+  enum Capability {
+    /** Every route found is a shortest one */
+    SHORTEST_ROUTE,
+
+    /** Needs no more than about a byte per cell, plus the cells waiting to be searched */
+    LOW_MEMORY,
+
+    /** Runs on more than one thread */
+    PARALLEL
+  }
+}
@@ -0,0 +1,133 @@
+package maze.routing;
+
+import maze.Maze;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.Function;
+
+/**  The solvers that can be picked by name or by capability. The route finders of this
+*    package are always registered first: "astar", "jps", "bidirectional", "bfs", "dfs"
+*    (RouteFinder), "parallel-bfs" and "bidirectional-threads", in that order. Any
+*    solvers found by a ServiceLoader follow them. If two solvers share a name, the
+*    one registered first is kept, so the built in solvers cannot be replaced
+*    @author Ashreen Kaur
+*/
+public class SolverRegistry {
+
+  private Map<String, Solver> solvers;
+
+  /**  Constructor to create a SolverRegistry, looking for extra solvers with the
+  *    class loader of the current thread
+  */
+  public SolverRegistry() {
+    this(Thread.currentThread().getContextClassLoader());
+  }
+
+  /**  Constructor to create a SolverRegistry
+  *    @param loader: the class loader to look for extra solvers with
+  */
+  public SolverRegistry(ClassLoader loader) {
+    solvers = new LinkedHashMap<String, Solver>();
+    register(new BuiltInSolver("astar", EnumSet.of(Solver.Capability.SHORTEST_ROUTE),
+        maze -> new AStarRouteFinder(maze).solve()));
+    register(new BuiltInSolver("jps", EnumSet.of(Solver.Capability.SHORTEST_ROUTE),
+        maze -> new JumpPointRouteFinder(maze).solve()));
+    register(new BuiltInSolver("bidirectional", EnumSet.of(Solver.Capability.SHORTEST_ROUTE),
+        maze -> new BidirectionalRouteFinder(maze).solve()));
+    register(new BuiltInSolver("bfs", EnumSet.of(Solver.Capability.SHORTEST_ROUTE, Solver.Capability.LOW_MEMORY),
+        maze -> new BreadthFirstRouteFinder(maze).solve()));
+    register(new BuiltInSolver("dfs", EnumSet.of(Solver.Capability.LOW_MEMORY),
+        maze -> new RouteFinder(maze).solve()));
+    register(new BuiltInSolver("parallel-bfs",
+        EnumSet.of(Solver.Capability.SHORTEST_ROUTE, Solver.Capability.LOW_MEMORY, Solver.Capability.PARALLEL),
+        maze -> new ParallelBreadthFirstRouteFinder(maze).solve()));
+    register(new BuiltInSolver("bidirectional-threads",
+        EnumSet.of(Solver.Capability.SHORTEST_ROUTE, Solver.Capability.PARALLEL),
+        maze -> new BidirectionalRouteFinder(maze, true).solve()));
+
+    for (Solver solver : ServiceLoader.load(Solver.class, loader)) {
+      register(solver);
+    }
+  }
+
+  private void register(Solver solver) {
+    solvers.putIfAbsent(solver.getName(), solver);
+  }
+
+  /**  Gets every registered solver, in the order they were registered
+  *    @return Returns a list of the solvers
+  */
+  public List<Solver> getSolvers() {
+    return Collections.unmodifiableList(new ArrayList<Solver>(solvers.values()));
+  }
+
+  /**  Gets the solver with a name
+  *    @param name: the name of the solver
+  *    @throws java.lang.IllegalArgumentException if no solver has that name
+  *    @return Returns the solver
+  */
+  public Solver get(String name) {
+    Solver solver = solvers.get(name);
+    if (solver == null) {
+      throw new IllegalArgumentException("No solver named " + name);
+    }
+    return solver;
+  }
+
+  /**  Gets the first registered solver that has every capability asked for
+  *    @param needed: the capabilities the solver must have
+  *    @throws java.lang.IllegalArgumentException if no solver has them all
+  *    @return Returns the solver
+  */
+  public Solver find(Solver.Capability... needed) {
+    for (Solver solver : solvers.values()) {
+      boolean suitable = true;
+      for (Solver.Capability capability : needed) {
+        if (solver.getCapabilities().contains(capability) == false) {
+          suitable = false;
+        }
+      }
+      if (suitable == true) {
+        return solver;
+      }
+    }
+    throw new IllegalArgumentException("No solver has all of the capabilities asked for");
+  }
+
+  /**  A solver that runs one of the route finders of this package on each maze  */
+  private static class BuiltInSolver implements Solver {
+    private String name;
+    private Set<Solver.Capability> capabilities;
+    private Function<Maze, SolveResult> run;
+
+    private BuiltInSolver(String solverName, EnumSet<Solver.Capability> solverCapabilities,
+        Function<Maze, SolveResult> solve) {
+      name = solverName;
+      capabilities = Collections.unmodifiableSet(solverCapabilities);
+      run = solve;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Set<Solver.Capability> getCapabilities() {
+      return capabilities;
+    }
+
+    public SolveResult solve(Maze maze) {
+      return run.apply(maze);
+    }
+
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -0,0 +1,520 @@
+package tests.dev.functional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import maze.ChunkCacheStats;
+import maze.InvalidMazeException;
+import maze.Maze;
+import maze.MazeBundle;
+import maze.MultipleEntranceException;
+import maze.RaggedMazeException;
+import maze.Tile;
+import maze.routing.BreadthFirstRouteFinder;
+import maze.routing.RouteFinder;
+import maze.routing.SolveResult;
+
+public class MazeStorageTest {
+
+    private static Path WORKING_DIR = Paths.get("");
+    private static Path TEST_MAZES_DIR = Paths.get(WORKING_DIR.toString(), "resources", "mazes");
+
+    // ~~~~~~~~~~ Utility Functions ~~~~~~~~~~
+
+    public Maze setupForMaze(String name) {
+        Maze rtn = null;
+        Path filePath = Paths.get(TEST_MAZES_DIR.toString(), name);
+        try {
+            rtn = Maze.fromTxt(filePath.toString());
+        } catch (Exception e) { fail(e.getClass().getName() + ": " + e.getMessage()); }
+        return rtn;
+    }
+
+    public File tempFile(String suffix) throws IOException {
+        File file = File.createTempFile("maze", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    public StringBuilder[] openRows(int width, int height) {
+        StringBuilder[] rows = new StringBuilder[height];
+        for (int row = 0; row < height; row++) {
+            rows[row] = new StringBuilder();
+            for (int column = 0; column < width; column++) rows[row].append('.');
+        }
+        rows[0].setCharAt(0, 'e');
+        rows[height - 1].setCharAt(width - 1, 'x');
+        return rows;
+    }
+
+    public File writeRows(StringBuilder[] rows) throws IOException {
+        File file = tempFile(".txt");
+        StringBuilder text = new StringBuilder();
+        for (StringBuilder row : rows) text.append(row).append('\n');
+        Files.write(file.toPath(), text.toString().getBytes("US-ASCII"));
+        return file;
+    }
+
+    public String solve(Maze maze) {
+        RouteFinder routeFinder = new RouteFinder(maze);
+        for (int i = 0; i < 200; ++i) if (routeFinder.step()) break;
+        assertTrue(routeFinder.isFinished());
+        return routeFinder.toString();
+    }
+
+    public void assertSameMaze(Maze expected, Maze actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.toString(), actual.toString());
+        assertSame(Tile.Type.ENTRANCE, actual.getEntrance().getType());
+        assertSame(Tile.Type.EXIT, actual.getExit().getType());
+        assertEquals(
+            expected.getTileLocation(expected.getEntrance()).toString(),
+            actual.getTileLocation(actual.getEntrance()).toString()
+        );
+        assertEquals(solve(expected), solve(actual));
+    }
+
+    // ~~~~~~~~~~ Functionality tests ~~~~~~~~~~
+
+    @Test
+    public void ensureGridFileRoundTrips() throws IOException {
+        Maze maze = setupForMaze("maze2.txt");
+        File file = tempFile(".grid");
+        maze.toGridFile(file.getPath());
+        assertSameMaze(maze, Maze.fromGridFile(file.getPath()));
+    }
+
+    @Test
+    public void ensureRouteFindersSolveMappedMazes() throws IOException {
+        for (Maze maze : new Maze[] {setupForMaze("maze2.txt"), Maze.fromTxt(writeRows(openRows(60, 40)).getPath())}) {
+            File file = tempFile(".grid");
+            maze.toGridFile(file.getPath());
+            Maze mapped = Maze.fromGridFile(file.getPath());
+
+            SolveResult expected = new RouteFinder(maze).solve();
+            SolveResult actual = new RouteFinder(mapped).solve();
+            assertTrue(actual.isFinished());
+            assertArrayEquals(expected.getRouteIndices(), actual.getRouteIndices());
+
+            expected = new BreadthFirstRouteFinder(maze).solve();
+            actual = new BreadthFirstRouteFinder(mapped).solve();
+            assertEquals(expected.getRouteLength(), actual.getRouteLength());
+        }
+    }
+
+    @Test
+    public void ensureGridFilesOfMoreThanIntCellsAreMapped() throws IOException {
+        int width = 1 << 16;
+        int height = (1 << 15) + 1;
+        long cells = (long) width * height;
+        long entrance = cells - width;
+        long exit = cells - 1;
+        File file = tempFile(".grid");
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            // grid file header: magic, size, then the low and high halves of the ends
+            raw.writeInt(0x4d5a4752);
+            raw.writeInt(width);
+            raw.writeInt(height);
+            raw.writeInt((int) entrance);
+            raw.writeInt((int) exit);
+            raw.writeInt((int) (entrance >>> 32));
+            raw.writeInt((int) (exit >>> 32));
+            // the cells are left as a hole in the file, which reads back as corridors
+            raw.setLength(32 + cells);
+            raw.seek(32 + entrance);
+            raw.write(Tile.Type.ENTRANCE.ordinal());
+            raw.seek(32 + exit);
+            raw.write(Tile.Type.EXIT.ordinal());
+        }
+
+        Maze maze = Maze.fromGridFile(file.getPath());
+        assertEquals(cells, maze.getCellCount());
+        assertEquals(entrance, maze.indexAt(0L, 0L));
+        assertEquals(0, maze.getTileLocation(maze.getEntrance()).getX());
+        assertEquals(0, maze.getTileLocation(maze.getEntrance()).getY());
+        assertSame(Tile.Type.EXIT, maze.typeAt(maze.indexAt((long) width - 1, 0L)));
+        assertSame(Tile.Type.CORRIDOR, maze.getAdjacentTile(maze.getEntrance(), Maze.Direction.EAST).getType());
+        assertEquals(entrance - width, maze.neighbor(entrance, Maze.Direction.NORTH));
+        assertTrue(maze.isNavigable(entrance - width));
+        assertThrows(ArithmeticException.class, () -> {
+            maze.getEntranceIndex();
+        });
+        // the route finders copy the maze into one array, which cannot hold it
+        assertThrows(IllegalArgumentException.class, () -> {
+            new RouteFinder(maze);
+        });
+    }
+
+    @Test
+    public void ensureChunkFileRoundTrips() throws IOException {
+        Maze maze = setupForMaze("maze2.txt");
+        File file = tempFile(".chunks");
+        maze.toChunkFile(file.getPath(), 4);
+        Maze chunked;
+        try (Maze opened = Maze.fromChunkFile(file.getPath(), 2)) {
+            chunked = opened;
+            assertSameMaze(maze, chunked);
+
+            ChunkCacheStats stats = chunked.getChunkCacheStats();
+            assertEquals(4, stats.getChunkSize());
+            assertTrue(stats.getMisses() > 0);
+            assertTrue(stats.getHits() > stats.getMisses());
+            assertNull(maze.getChunkCacheStats());
+        }
+
+        // once closed, chunks that are not cached can no longer be read
+        assertThrows(IllegalStateException.class, () -> {
+            for (long index = 0; index < chunked.getCellCount(); index++) chunked.typeAt(index);
+        });
+        maze.close();
+        assertEquals(Tile.Type.ENTRANCE, maze.typeAt(maze.getEntranceIndex()));
+    }
+
+    @Test
+    public void ensureChunkCacheDropsLeastRecentlyUsedChunk() throws IOException {
+        Maze maze = setupForMaze("maze2.txt");
+        File file = tempFile(".chunks");
+        maze.toChunkFile(file.getPath(), 2);
+        try (Maze chunked = Maze.fromChunkFile(file.getPath(), 2)) {
+            // cells 0, 2 and 4 of the top row sit in three different chunks
+            chunked.typeAt(0L);
+            chunked.typeAt(2L);
+            ChunkCacheStats before = chunked.getChunkCacheStats();
+            for (long index : new long[] {0, 4, 0, 2, 0}) {
+                assertSame(maze.typeAt(index), chunked.typeAt(index));
+            }
+            ChunkCacheStats after = chunked.getChunkCacheStats();
+            assertEquals(3, after.getHits() - before.getHits());
+            assertEquals(2, after.getMisses() - before.getMisses());
+        }
+
+        // one cell per chunk, so the cache grows to its limit and then keeps evicting
+        maze.toChunkFile(file.getPath(), 1);
+        try (Maze chunked = Maze.fromChunkFile(file.getPath(), 20)) {
+            assertSameMaze(maze, chunked);
+            assertSameMaze(maze, chunked);
+        }
+    }
+
+    @Test
+    public void ensureSolvingChunkedMazeReadsEachChunkOnce() throws IOException {
+        // 8x8 chunks of 64 cells, with a cache holding half a row of them
+        Maze maze = Maze.fromTxt(writeRows(openRows(512, 512)).getPath());
+        File file = tempFile(".chunks");
+        maze.toChunkFile(file.getPath(), 64);
+        try (Maze chunked = Maze.fromChunkFile(file.getPath(), 4)) {
+            long opened = chunked.getChunkCacheStats().getMisses();
+            SolveResult result = new BreadthFirstRouteFinder(chunked).solve();
+            assertEquals(1023, result.getRouteLength());
+
+            ChunkCacheStats stats = chunked.getChunkCacheStats();
+            assertEquals(4, stats.getCachedChunks());
+            assertTrue(stats.getMisses() - opened <= 64);
+        }
+    }
+
+    @Test
+    public void ensureIndexApiMatchesCoordinates() {
+        Maze maze = setupForMaze("maze1.txt");
+        for (int x = 0; x < maze.getWidth(); x++) {
+            for (int y = 0; y < maze.getHeight(); y++) {
+                Tile tile = maze.getTileAtLocation(maze.new Coordinate(x, y));
+                int index = maze.indexAt(x, y);
+                assertSame(tile, maze.tileAt(index));
+                assertSame(tile.getType(), maze.typeAt(index));
+                assertEquals(x, maze.xOf(index));
+                assertEquals(y, maze.yOf(index));
+                for (Maze.Direction direction : Maze.Direction.values()) {
+                    int next = maze.neighbor(index, direction);
+                    if (next == -1) {
+                        assertEquals(-1, maze.indexAt(x + direction.getDx(), y + direction.getDy()));
+                    } else {
+                        assertSame(maze.getAdjacentTile(tile, direction), maze.tileAt(next));
+                    }
+                }
+            }
+        }
+        assertSame(maze.getEntrance(), maze.tileAt(maze.getEntranceIndex()));
+        assertSame(maze.getExit(), maze.tileAt(maze.getExitIndex()));
+    }
+
+    @Test
+    public void ensureWritingTilesKeepsEntranceAndExitInStep() {
+        Maze maze = setupForMaze("maze1.txt");
+        Tile entrance = maze.getEntrance();
+        int index = maze.getEntranceIndex();
+        List<Tile> row = maze.getTiles().get(index / maze.getWidth());
+        Tile corridor = maze.getTiles().get(1).get(0);
+
+        // writing over the entrance leaves the maze without one
+        row.set(index % maze.getWidth(), corridor);
+        assertNull(maze.getEntrance());
+        assertEquals(-1, maze.getEntranceIndex());
+
+        // and writing an entrance back makes it the entrance again
+        row.set(index % maze.getWidth(), entrance);
+        assertSame(entrance, maze.getEntrance());
+        assertEquals(index, maze.getEntranceIndex());
+
+        // an exit written while the maze has one does not replace it
+        Tile exit = maze.getExit();
+        maze.getTiles().get(1).set(1, maze.getTiles().get(4).get(5));
+        assertSame(exit, maze.getExit());
+        assertEquals(Tile.Type.EXIT, maze.getTiles().get(4).get(5).getType());
+    }
+
+    @Test
+    public void ensureTilesAreFoundByTheirOwnIndex() {
+        Maze maze = setupForMaze("maze2.txt");
+        int cells = maze.getWidth() * maze.getHeight();
+        Tile[] tiles = new Tile[cells];
+        for (int index = 0; index < cells; index++) {
+            tiles[index] = maze.tileAt(index);
+        }
+        // closing cells drops their tiles, and every other tile must still be found
+        for (int index = 0; index < cells; index += 3) {
+            if (maze.isNavigable(index) && index != maze.getEntranceIndex() && index != maze.getExitIndex()) {
+                maze.setNavigable(index, false);
+                assertNotSame(tiles[index], maze.tileAt(index));
+                tiles[index] = maze.tileAt(index);
+            }
+        }
+        for (int index = 0; index < cells; index++) {
+            assertSame(tiles[index], maze.tileAt(index));
+            assertEquals(index, maze.getTileIndex(tiles[index]));
+        }
+
+        Tile foreign = setupForMaze("maze2.txt").tileAt(0);
+        assertThrows(IllegalArgumentException.class, () -> {
+            maze.getTileIndex(foreign);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            maze.getAdjacentTile(foreign, Maze.Direction.EAST);
+        });
+
+        // a tile written into the grid is found where it was written
+        maze.getTiles().get(0).set(1, foreign);
+        assertSame(foreign, maze.tileAt(1));
+        assertEquals(1, maze.getTileIndex(foreign));
+    }
+
+    @Test
+    public void ensureParallelParseMatchesFromTxt() throws IOException {
+        for (String name : new String[]{"maze1.txt", "maze2.txt"}) {
+            Path filePath = Paths.get(TEST_MAZES_DIR.toString(), name);
+            assertSameMaze(setupForMaze(name), Maze.fromTxtParallel(filePath.toString()));
+        }
+    }
+
+    @Test
+    public void ensureParallelParseReportsInvalidMazes() throws IOException {
+        String[] names = new String[]{"invalidChar.txt", "noEntrance.txt", "noExit.txt", "ragged.txt"};
+        for (String name : names) {
+            Path filePath = Paths.get(TEST_MAZES_DIR.toString(), "invalid", name);
+            Class expected = null;
+            try {
+                Maze.fromTxt(filePath.toString());
+            } catch (RuntimeException e) { expected = e.getClass(); }
+            try {
+                Maze.fromTxtParallel(filePath.toString());
+                fail("No exception for " + name);
+            } catch (RuntimeException e) {
+                assertSame(expected, e.getClass());
+            }
+        }
+    }
+
+    @Test
+    public void ensureParallelParseReportsTheEarliestDefect() throws IOException {
+        // about 3 MB, so the rows are split over several parse tasks
+        int width = 1024;
+        int height = 3000;
+
+        // a row one short and the next one long, with a bad character further on
+        StringBuilder[] raggedFirst = openRows(width, height);
+        raggedFirst[2].setLength(width - 1);
+        raggedFirst[3].append('.');
+        raggedFirst[height - 2].setCharAt(5, '?');
+
+        StringBuilder[] invalidFirst = openRows(width, height);
+        invalidFirst[2].setCharAt(5, '?');
+        invalidFirst[height - 3].setLength(width - 1);
+        invalidFirst[height - 2].append('.');
+
+        StringBuilder[] entranceFirst = openRows(width, height);
+        entranceFirst[1].setCharAt(7, 'e');
+        entranceFirst[height - 2].setCharAt(5, '?');
+
+        Object[][] cases = new Object[][]{
+            {raggedFirst, RaggedMazeException.class},
+            {invalidFirst, InvalidMazeException.class},
+            {entranceFirst, MultipleEntranceException.class}
+        };
+        for (Object[] c : cases) {
+            File file = writeRows((StringBuilder[]) c[0]);
+            assertThrows((Class<? extends RuntimeException>) c[1], () -> {
+                Maze.fromTxt(file.getPath());
+            });
+            assertThrows((Class<? extends RuntimeException>) c[1], () -> {
+                Maze.fromTxtParallel(file.getPath());
+            });
+        }
+    }
+
+    @Test
+    public void ensureBinaryFileRoundTrips() throws IOException {
+        Maze maze = setupForMaze("maze2.txt");
+        File file = tempFile(".mzb");
+        maze.toBinary(file.getPath());
+        assertSameMaze(maze, Maze.fromBinary(file.getPath()));
+    }
+
+    @Test
+    public void ensureCorruptBinaryFileThrowsInvalidMazeException() throws IOException {
+        Maze maze = setupForMaze("maze2.txt");
+        File file = tempFile(".mzb");
+        maze.toBinary(file.getPath());
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(raw.length() - 1);
+            int last = raw.read();
+            raw.seek(raw.length() - 1);
+            raw.write(last ^ 0x0f);
+        }
+        assertThrows(InvalidMazeException.class, () -> {
+            Maze.fromBinary(file.getPath());
+        });
+    }
+
+    @Test
+    public void ensureStreamChannelAndBufferLoadingMatchFromTxt() throws IOException {
+        Path filePath = Paths.get(TEST_MAZES_DIR.toString(), "maze2.txt");
+        byte[] text = Files.readAllBytes(filePath);
+        Maze maze = setupForMaze("maze2.txt");
+
+        assertSameMaze(maze, Maze.fromTxt(new ByteArrayInputStream(text)));
+        assertSameMaze(maze, Maze.fromTxt(Channels.newChannel(new ByteArrayInputStream(text))));
+        assertSameMaze(maze, Maze.fromTxt(ByteBuffer.wrap(text)));
+    }
+
+    @Test
+    public void ensureGzipTextIsDetected() throws IOException {
+        Path filePath = Paths.get(TEST_MAZES_DIR.toString(), "maze2.txt");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(Files.readAllBytes(filePath));
+        }
+        byte[] compressed = bytes.toByteArray();
+        File file = tempFile(".txt.gz");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(compressed);
+        }
+        Maze maze = setupForMaze("maze2.txt");
+
+        assertSameMaze(maze, Maze.fromTxt(new ByteArrayInputStream(compressed)));
+        assertSameMaze(maze, Maze.fromTxt(Channels.newChannel(new ByteArrayInputStream(compressed))));
+        assertSameMaze(maze, Maze.fromTxt(ByteBuffer.wrap(compressed)));
+        assertSameMaze(maze, Maze.fromTxt(file.getPath()));
+    }
+
+    @Test
+    public void ensureStreamLoadingThrowsForInvalidMazes() throws IOException {
+        String[] names = new String[]{"invalidChar.txt", "noEntrance.txt", "noExit.txt", "ragged.txt"};
+        for (String name : names) {
+            Path filePath = Paths.get(TEST_MAZES_DIR.toString(), "invalid", name);
+            Class expected = null;
+            try {
+                Maze.fromTxt(filePath.toString());
+            } catch (RuntimeException e) { expected = e.getClass(); }
+            try {
+                Maze.fromTxt(new ByteArrayInputStream(Files.readAllBytes(filePath)));
+                fail("No exception for " + name);
+            } catch (RuntimeException e) {
+                assertSame(expected, e.getClass());
+            }
+        }
+    }
+
+    @Test
+    public void ensureBundleOpensAnyMaze() throws IOException {
+        Maze maze1 = setupForMaze("maze1.txt");
+        Maze maze2 = setupForMaze("maze2.txt");
+        File file = tempFile(".bundle");
+        try (MazeBundle.Writer writer = new MazeBundle.Writer(file.getPath())) {
+            assertEquals(0, writer.add(maze1));
+            assertEquals(1, writer.add(maze2));
+            assertEquals(2, writer.add(maze1));
+        }
+
+        try (MazeBundle bundle = MazeBundle.open(file.getPath())) {
+            assertEquals(3, bundle.size());
+            assertSameMaze(maze2, bundle.get(1));
+            assertSameMaze(maze1, bundle.get(2));
+            assertSameMaze(maze1, bundle.get(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> {
+                bundle.get(3);
+            });
+        }
+    }
+
+    @Test
+    public void ensureClosedBundleThrowsIllegalStateException() throws IOException {
+        File file = tempFile(".bundle");
+        try (MazeBundle.Writer writer = new MazeBundle.Writer(file.getPath())) {
+            writer.add(setupForMaze("maze2.txt"));
+        }
+        MazeBundle bundle = MazeBundle.open(file.getPath());
+        bundle.close();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+            bundle.get(0);
+        });
+        assertEquals("Bundle is closed", e.getMessage());
+        e = assertThrows(IllegalStateException.class, () -> {
+            bundle.size();
+        });
+        assertEquals("Bundle is closed", e.getMessage());
+    }
+
+    @Test
+    public void ensureClosingBundleTwiceDoesNothing() throws IOException {
+        File file = tempFile(".bundle");
+        try (MazeBundle.Writer writer = new MazeBundle.Writer(file.getPath())) {
+            writer.add(setupForMaze("maze2.txt"));
+        }
+        MazeBundle bundle = MazeBundle.open(file.getPath());
+        bundle.close();
+        bundle.close();
+        assertThrows(IllegalStateException.class, () -> {
+            bundle.size();
+        });
+    }
+
+    @Test
+    public void ensureTruncatedBundleThrowsInvalidMazeException() throws IOException {
+        File file = tempFile(".bundle");
+        try (MazeBundle.Writer writer = new MazeBundle.Writer(file.getPath())) {
+            writer.add(setupForMaze("maze2.txt"));
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 4);
+        }
+        assertThrows(InvalidMazeException.class, () -> {
+            MazeBundle.open(file.getPath());
+        });
+    }
+
+}
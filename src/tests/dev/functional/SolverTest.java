@@ -0,0 +1,784 @@
+package tests.dev.functional;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiPredicate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import maze.DeadEndFiller;
+import maze.InvalidMazeException;
+import maze.Maze;
+import maze.Tile;
+import maze.routing.AStarRouteFinder;
+import maze.routing.BidirectionalRouteFinder;
+import maze.routing.BreadthFirstRouteFinder;
+import maze.routing.DistanceField;
+import maze.routing.HierarchicalGraph;
+import maze.routing.IncrementalPlanner;
+import maze.routing.JumpPointRouteFinder;
+import maze.routing.JunctionGraph;
+import maze.routing.NoRouteFoundException;
+import maze.routing.ParallelBreadthFirstRouteFinder;
+import maze.routing.RouteFinder;
+import maze.routing.SolveResult;
+import maze.routing.Solver;
+import maze.routing.SolverRegistry;
+
+public class SolverTest {
+
+    private static Path WORKING_DIR = Paths.get("");
+    private static Path TEST_MAZES_DIR = Paths.get(WORKING_DIR.toString(), "resources", "mazes");
+    private static String[] TEST_MAZES = new String[]{"maze1.txt", "maze2.txt"};
+
+    // ~~~~~~~~~~ Utility Functions ~~~~~~~~~~
+
+    public Maze setupForMaze(String name) {
+        Maze rtn = null;
+        Path filePath = Paths.get(TEST_MAZES_DIR.toString(), name);
+        try {
+            rtn = Maze.fromTxt(filePath.toString());
+        } catch (Exception e) { fail(e.getClass().getName() + ": " + e.getMessage()); }
+        return rtn;
+    }
+
+    /**  Saves something to a file, such as a route finder or a graph  */
+    public interface Saver {
+        void save(String path) throws IOException;
+    }
+
+    /**  Reads back something written by a Saver  */
+    public interface Loader<T> {
+        T load(String path) throws IOException;
+    }
+
+    public File saveToTempFile(Saver saver, String suffix) throws IOException {
+        File file = File.createTempFile("solver", suffix);
+        file.deleteOnExit();
+        saver.save(file.getPath());
+        return file;
+    }
+
+    public <T> T roundTrip(Saver saver, Loader<T> loader) throws IOException {
+        return loader.load(saveToTempFile(saver, ".saved").getPath());
+    }
+
+    // entrance in the top left corner, exit at the end of exitRow, and walls wherever
+    // isWall says, asked row by row
+    public Maze buildMaze(int size, int exitRow, BiPredicate<Integer, Integer> isWall) {
+        StringBuilder text = new StringBuilder();
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                if (row == 0 && column == 0) text.append('e');
+                else if (row == exitRow && column == size - 1) text.append('x');
+                else text.append(isWall.test(row, column) ? '#' : '.');
+            }
+            text.append('\n');
+        }
+        Maze rtn = null;
+        try {
+            rtn = Maze.fromTxt(ByteBuffer.wrap(text.toString().getBytes()));
+        } catch (Exception e) { fail(e.getClass().getName() + ": " + e.getMessage()); }
+        return rtn;
+    }
+
+    public Maze randomMaze(int size, Random random, int wallsInTen) {
+        return buildMaze(size, size - 1, (row, column) -> random.nextInt(10) < wallsInTen);
+    }
+
+    public RouteFinder solveAlone(String name) {
+        RouteFinder routeFinder = new RouteFinder(setupForMaze(name));
+        for (int i = 0; i < 200; ++i) if (routeFinder.step()) break;
+        return routeFinder;
+    }
+
+    public int shortestRouteLength(Maze maze) {
+        int[] distance = new int[maze.getWidth() * maze.getHeight()];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        distance[maze.getEntranceIndex()] = 1;
+        queue.add(maze.getEntranceIndex());
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            for (Maze.Direction direction : Maze.Direction.values()) {
+                int next = maze.neighbor(index, direction);
+                if (next != -1 && distance[next] == -1 && maze.isNavigable(next)) {
+                    distance[next] = distance[index] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return distance[maze.getExitIndex()];
+    }
+
+    public void assertIsRoute(Maze maze, int[] route) {
+        assertEquals(maze.getEntranceIndex(), route[0]);
+        assertEquals(maze.getExitIndex(), route[route.length - 1]);
+        for (int i = 1; i < route.length; i++) {
+            assertTrue(maze.isNavigable(route[i]));
+            boolean adjacent = false;
+            for (Maze.Direction direction : Maze.Direction.values()) {
+                if (maze.neighbor(route[i - 1], direction) == route[i]) adjacent = true;
+            }
+            assertTrue(adjacent);
+        }
+    }
+
+    // ~~~~~~~~~~ Functionality tests ~~~~~~~~~~
+
+    @Test
+    public void ensureRouteFindersSharingAMazeDoNotInterfere() {
+        Maze maze = setupForMaze("maze2.txt");
+        RouteFinder first = new RouteFinder(maze);
+        RouteFinder second = new RouteFinder(maze);
+
+        // Interleave the two searches, with the second one lagging behind
+        for (int i = 0; i < 200; ++i) {
+            first.step();
+            if (i % 2 == 0) second.step();
+        }
+        for (int i = 0; i < 200; ++i) second.step();
+
+        RouteFinder alone = solveAlone("maze2.txt");
+        assertTrue(first.isFinished());
+        assertTrue(second.isFinished());
+        assertEquals(alone.toString(), first.toString());
+        assertEquals(alone.toString(), second.toString());
+        assertEquals(alone.getRoute().size(), second.getRoute().size());
+    }
+
+    @Test
+    public void ensureSolveMatchesSteppingByHand() {
+        RouteFinder alone = solveAlone("maze2.txt");
+        RouteFinder routeFinder = new RouteFinder(setupForMaze("maze2.txt"));
+        SolveResult result = routeFinder.solve();
+
+        assertTrue(result.isFinished());
+        assertTrue(routeFinder.isFinished());
+        assertEquals(alone.toString(), routeFinder.toString());
+        List<Tile> expected = alone.getRoute();
+        List<Tile> route = result.getRoute();
+        assertEquals(expected.size(), route.size());
+        assertEquals(route.size(), result.getRouteLength());
+        for (int i = 0; i < route.size(); i++) {
+            assertSame(expected.get(i).getType(), route.get(i).getType());
+            assertSame(route.get(i), result.getMaze().tileAt(result.getRouteIndices()[i]));
+        }
+        assertSame(Tile.Type.ENTRANCE, route.get(0).getType());
+        assertSame(Tile.Type.EXIT, route.get(route.size() - 1).getType());
+        assertTrue(result.getVisited() >= route.size() - 1);
+        assertEquals(result.getVisited() - 1, result.getSteps() - result.getDeadEnds() - 1);
+    }
+
+    @Test
+    public void ensureStepNTakesAtMostNSteps() {
+        RouteFinder routeFinder = new RouteFinder(setupForMaze("maze2.txt"));
+        SolveResult partial = routeFinder.stepN(5);
+        assertFalse(partial.isFinished());
+        assertEquals(5, partial.getSteps());
+
+        RouteFinder byHand = new RouteFinder(setupForMaze("maze2.txt"));
+        for (int i = 0; i < 5; ++i) byHand.step();
+        assertEquals(byHand.toString(), routeFinder.toString());
+
+        SolveResult rest = routeFinder.stepN(1000);
+        assertTrue(rest.isFinished());
+        assertTrue(rest.getSteps() < 1005);
+        assertEquals(rest.getSteps(), routeFinder.stepN(10).getSteps());
+    }
+
+    @Test
+    public void ensureSolveWithinStopsOrFinishes() {
+        RouteFinder routeFinder = new RouteFinder(setupForMaze("maze2.txt"));
+        SolveResult result = routeFinder.solveWithin(Duration.ofSeconds(10));
+        assertTrue(result.isFinished());
+        assertEquals(solveAlone("maze2.txt").toString(), routeFinder.toString());
+
+        // an empty budget still runs until the clock is first checked
+        RouteFinder stopped = new RouteFinder(setupForMaze("maze2.txt"));
+        SolveResult partial = stopped.solveWithin(Duration.ZERO);
+        assertTrue(partial.getSteps() <= 1024);
+        RouteFinder byHand = new RouteFinder(setupForMaze("maze2.txt"));
+        for (int i = 0; i < partial.getSteps(); ++i) byHand.step();
+        assertEquals(byHand.toString(), stopped.toString());
+    }
+
+    @Test
+    public void ensureBreadthFirstRouteIsShortest() {
+        for (String name : TEST_MAZES) {
+            Maze maze = setupForMaze(name);
+            SolveResult result = new BreadthFirstRouteFinder(maze).solve();
+            assertTrue(result.isFinished());
+            assertIsRoute(maze, result.getRouteIndices());
+            assertEquals(shortestRouteLength(maze), result.getRouteLength());
+            assertTrue(result.getRouteLength() <= new RouteFinder(maze).solve().getRouteLength());
+        }
+    }
+
+    @Test
+    public void ensureBreadthFirstRouteFinderSavesAndLoads() throws IOException {
+        BreadthFirstRouteFinder routeFinder = new BreadthFirstRouteFinder(setupForMaze("maze2.txt"));
+        for (int i = 0; i < 10; ++i) routeFinder.step();
+        File file = saveToTempFile(routeFinder::save, ".route");
+
+        BreadthFirstRouteFinder loaded = BreadthFirstRouteFinder.load(file.getPath());
+        assertEquals(routeFinder.toString(), loaded.toString());
+        assertEquals(routeFinder.getRoute().size(), loaded.getRoute().size());
+        assertEquals(routeFinder.solve().getRouteLength(), loaded.solve().getRouteLength());
+        assertEquals(routeFinder.toString(), loaded.toString());
+        assertNull(BreadthFirstRouteFinder.load(file.getPath() + ".missing"));
+    }
+
+    @Test
+    public void ensureBreadthFirstToStringMatchesRouteFinderLayout() {
+        Maze maze = setupForMaze("maze2.txt");
+        BreadthFirstRouteFinder routeFinder = new BreadthFirstRouteFinder(maze);
+        routeFinder.solve();
+        String[] lines = routeFinder.toString().split("\n");
+        String[] expected = new RouteFinder(maze).toString().split("\n");
+        assertEquals(expected.length, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(expected[i].length(), lines[i].length());
+        }
+        int stars = 0;
+        for (char c : routeFinder.toString().toCharArray()) if (c == '*') stars++;
+        assertEquals(routeFinder.getRoute().size() - 1, stars);
+    }
+
+    @Test
+    public void ensureAStarRouteIsShortest() {
+        for (String name : TEST_MAZES) {
+            Maze maze = setupForMaze(name);
+            AStarRouteFinder routeFinder = new AStarRouteFinder(maze);
+            SolveResult result = routeFinder.solve();
+            assertTrue(result.isFinished());
+            assertIsRoute(maze, result.getRouteIndices());
+            assertEquals(shortestRouteLength(maze), result.getRouteLength());
+            assertEquals(routeFinder.getExpanded(), result.getSteps());
+            assertTrue(result.getSteps() > 0);
+        }
+    }
+
+    @Test
+    public void ensureAStarRouteFinderSavesAndLoads() throws IOException {
+        AStarRouteFinder routeFinder = new AStarRouteFinder(setupForMaze("maze2.txt"));
+        for (int i = 0; i < 10; ++i) routeFinder.step();
+        AStarRouteFinder loaded = roundTrip(routeFinder::save, AStarRouteFinder::load);
+        assertEquals(routeFinder.toString(), loaded.toString());
+        assertEquals(routeFinder.solve().getRouteLength(), loaded.solve().getRouteLength());
+        assertEquals(routeFinder.toString(), loaded.toString());
+    }
+
+    @Test
+    public void ensureJumpPointRouteIsShortest() {
+        for (String name : TEST_MAZES) {
+            Maze maze = setupForMaze(name);
+            JumpPointRouteFinder routeFinder = new JumpPointRouteFinder(maze);
+            SolveResult result = routeFinder.solve();
+            assertTrue(result.isFinished());
+            assertIsRoute(maze, result.getRouteIndices());
+            assertEquals(shortestRouteLength(maze), result.getRouteLength());
+            assertTrue(routeFinder.getExpanded() <= new AStarRouteFinder(maze).solve().getSteps());
+        }
+    }
+
+    @Test
+    public void ensureJumpPointRouteFinderSavesAndLoads() throws IOException {
+        JumpPointRouteFinder routeFinder = new JumpPointRouteFinder(setupForMaze("maze2.txt"));
+        for (int i = 0; i < 3; ++i) routeFinder.step();
+        JumpPointRouteFinder loaded = roundTrip(routeFinder::save, JumpPointRouteFinder::load);
+        assertEquals(routeFinder.toString(), loaded.toString());
+        assertEquals(routeFinder.solve().getRouteLength(), loaded.solve().getRouteLength());
+        assertEquals(routeFinder.toString(), loaded.toString());
+    }
+
+    @Test
+    public void ensureBidirectionalRouteIsShortest() {
+        for (String name : TEST_MAZES) {
+            for (boolean twoThreads : new boolean[]{false, true}) {
+                Maze maze = setupForMaze(name);
+                BidirectionalRouteFinder routeFinder = new BidirectionalRouteFinder(maze, twoThreads);
+                SolveResult result = routeFinder.solve();
+                assertTrue(result.isFinished());
+                assertTrue(routeFinder.isFinished());
+                assertIsRoute(maze, result.getRouteIndices());
+                assertEquals(shortestRouteLength(maze), result.getRouteLength());
+                assertEquals(result.getRouteLength(), routeFinder.getRoute().size());
+            }
+        }
+    }
+
+    @Test
+    public void ensureBidirectionalToStringDrawsRoute() {
+        Maze maze = setupForMaze("maze2.txt");
+        BidirectionalRouteFinder routeFinder = new BidirectionalRouteFinder(maze);
+        SolveResult result = routeFinder.solve();
+        int stars = 0;
+        for (char c : routeFinder.toString().toCharArray()) if (c == '*') stars++;
+        assertEquals(result.getRouteLength() - 1, stars);
+        assertEquals(new RouteFinder(maze).toString().length(), routeFinder.toString().length());
+    }
+
+    @Test
+    public void ensureDeadEndFillingLeavesOnlyTheRouteOfATreeMaze() {
+        Maze maze = setupForMaze("maze1.txt");
+        DeadEndFiller filler = new DeadEndFiller(maze);
+        Maze pruned = filler.getPrunedMaze();
+
+        int open = 0;
+        for (int index = 0; index < pruned.getWidth() * pruned.getHeight(); index++) {
+            if (pruned.isNavigable(index)) open++;
+            assertEquals(filler.isFilled(index), maze.isNavigable(index) && !pruned.isNavigable(index));
+        }
+        assertEquals(shortestRouteLength(maze), open);
+        assertTrue(filler.getFilledCount() > 0);
+
+        SolveResult result = new RouteFinder(pruned).solve();
+        assertEquals(0, result.getDeadEnds());
+        assertEquals(open, result.getRouteLength());
+    }
+
+    @Test
+    public void ensureDeadEndFillingKeepsShortestRoutes() {
+        for (String name : TEST_MAZES) {
+            Maze maze = setupForMaze(name);
+            Maze pruned = DeadEndFiller.prune(maze);
+            assertEquals(maze.getEntranceIndex(), pruned.getEntranceIndex());
+            assertEquals(maze.getExitIndex(), pruned.getExitIndex());
+            assertEquals(shortestRouteLength(maze), shortestRouteLength(pruned));
+            assertIsRoute(maze, new RouteFinder(pruned).solve().getRouteIndices());
+        }
+        Maze pruned = DeadEndFiller.prune(setupForMaze("maze2.txt"));
+        assertThrows(UnsupportedOperationException.class, () -> {
+            pruned.getTiles().get(1).set(1, pruned.getTiles().get(0).get(0));
+        });
+    }
+
+    @Test
+    public void ensureJunctionGraphRouteIsShortest() {
+        for (String name : TEST_MAZES) {
+            Maze maze = setupForMaze(name);
+            JunctionGraph graph = new JunctionGraph(maze);
+            assertTrue(graph.getJunctionCount() < maze.getWidth() * maze.getHeight());
+            assertTrue(graph.isJunction(maze.getEntranceIndex()));
+            assertTrue(graph.isJunction(maze.getExitIndex()));
+
+            SolveResult result = graph.solve();
+            assertTrue(result.isFinished());
+            assertEquals(shortestRouteLength(maze), result.getRouteLength());
+            assertIsRoute(maze, result.getRouteIndices());
+            assertEquals(result.getRouteLength(), result.getRoute().size());
+
+            // a second query reuses the same graph
+            assertArrayEquals(result.getRouteIndices(), graph.solve().getRouteIndices());
+        }
+    }
+
+    @Test
+    public void ensureJunctionGraphAnswersQueriesBetweenJunctions() {
+        Maze maze = setupForMaze("maze2.txt");
+        JunctionGraph graph = new JunctionGraph(maze);
+        SolveResult backwards = graph.solve(maze.getExitIndex(), maze.getEntranceIndex());
+        assertEquals(shortestRouteLength(maze), backwards.getRouteLength());
+        int[] route = backwards.getRouteIndices();
+        assertEquals(maze.getExitIndex(), route[0]);
+        assertEquals(maze.getEntranceIndex(), route[route.length - 1]);
+
+        int corridor = maze.indexAt(1, maze.getHeight() - 2);
+        assertTrue(maze.isNavigable(corridor));
+        assertFalse(graph.isJunction(corridor));
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.solve(corridor, maze.getExitIndex());
+        });
+    }
+
+    @Test
+    public void ensureHierarchicalRouteIsShortestInNarrowCorridors() {
+        for (String name : TEST_MAZES) {
+            Maze maze = setupForMaze(name);
+            for (int size = 2; size <= 5; size++) {
+                HierarchicalGraph graph = new HierarchicalGraph(maze, size, ForkJoinPool.commonPool());
+                assertTrue(graph.getClusterCount() > 1);
+                assertTrue(graph.getNodeCount() > 0);
+
+                SolveResult result = graph.solve();
+                assertTrue(result.isFinished());
+                assertEquals(shortestRouteLength(maze), result.getRouteLength());
+                assertIsRoute(maze, result.getRouteIndices());
+                assertArrayEquals(result.getRouteIndices(), graph.solve().getRouteIndices());
+            }
+        }
+    }
+
+    @Test
+    public void ensureHierarchicalGraphAnswersQueriesBetweenAnyCells() {
+        Maze maze = setupForMaze("maze2.txt");
+        HierarchicalGraph graph = new HierarchicalGraph(maze, 3, ForkJoinPool.commonPool());
+        SolveResult backwards = graph.solve(maze.getExitIndex(), maze.getEntranceIndex());
+        assertEquals(shortestRouteLength(maze), backwards.getRouteLength());
+        int[] route = backwards.getRouteIndices();
+        assertEquals(maze.getExitIndex(), route[0]);
+        assertEquals(maze.getEntranceIndex(), route[route.length - 1]);
+
+        int corridor = maze.indexAt(1, maze.getHeight() - 2);
+        assertEquals(1, graph.solve(corridor, corridor).getRouteLength());
+        assertEquals(2, graph.solve(corridor, maze.getEntranceIndex()).getRouteLength());
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.solve(maze.indexAt(0, 0), maze.getExitIndex());
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.solve(-1, maze.getExitIndex());
+        });
+    }
+
+    @Test
+    public void ensureHierarchicalGraphSavesAndLoads() throws IOException {
+        Maze maze = setupForMaze("maze2.txt");
+        HierarchicalGraph graph = new HierarchicalGraph(maze, 4, ForkJoinPool.commonPool());
+        File file = saveToTempFile(graph::save, ".graph");
+
+        HierarchicalGraph loaded = HierarchicalGraph.load(file.getPath(), maze);
+        assertSame(maze, loaded.getMaze());
+        assertEquals(graph.getNodeCount(), loaded.getNodeCount());
+        assertEquals(graph.getEdgeCount(), loaded.getEdgeCount());
+        assertArrayEquals(graph.solve().getRouteIndices(), loaded.solve().getRouteIndices());
+
+        assertNull(HierarchicalGraph.load(file.getPath(), setupForMaze("maze1.txt")));
+        assertNull(HierarchicalGraph.load(file.getPath() + ".missing", maze));
+
+        // a maze of the same size with one cell closed is not the maze the graph was built for
+        Maze changed = setupForMaze("maze2.txt");
+        int cell = graph.solve().getRouteIndices()[1];
+        changed.setNavigable(cell, false);
+        assertNull(HierarchicalGraph.load(file.getPath(), changed));
+    }
+
+    @Test
+    public void ensureParallelBreadthFirstRouteIsShortest() {
+        for (String name : TEST_MAZES) {
+            Maze maze = setupForMaze(name);
+            ParallelBreadthFirstRouteFinder routeFinder = new ParallelBreadthFirstRouteFinder(maze);
+            assertTrue(routeFinder.getRoute().isEmpty());
+            SolveResult result = routeFinder.solve();
+            assertTrue(routeFinder.isFinished());
+            assertEquals(shortestRouteLength(maze), result.getRouteLength());
+            assertIsRoute(maze, result.getRouteIndices());
+            assertEquals(result.getRouteLength(), routeFinder.getLevels() + 1);
+            assertEquals(result.getRouteLength(), routeFinder.getRoute().size());
+        }
+
+        // larger random mazes, some with no route at all
+        Random random = new Random(21);
+        for (int size : new int[]{300, 1200}) {
+            for (int wallsInTen : new int[]{2, 4}) {
+                Maze maze = randomMaze(size, random, wallsInTen);
+                int expected = shortestRouteLength(maze);
+                if (expected == -1) {
+                    assertThrows(NoRouteFoundException.class, () -> {
+                        new ParallelBreadthFirstRouteFinder(maze).solve();
+                    });
+                } else {
+                    SolveResult result = new ParallelBreadthFirstRouteFinder(maze).solve();
+                    assertEquals(expected, result.getRouteLength());
+                    assertIsRoute(maze, result.getRouteIndices());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ensureParallelBreadthFirstSplitsWideLayers() {
+        // open enough that the layers are wider than one block
+        int size = 1500;
+        Maze maze = buildMaze(size, size - 1, (row, column) -> (row * 7 + column * 13) % 11 == 0);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SolveResult result = new ParallelBreadthFirstRouteFinder(maze, pool).solve();
+            assertEquals(shortestRouteLength(maze), result.getRouteLength());
+            assertEquals(new BreadthFirstRouteFinder(maze).solve().getVisited(), result.getVisited());
+            assertIsRoute(maze, result.getRouteIndices());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void ensureDistanceFieldGivesShortestRoutesFromAnyCell() {
+        for (String name : TEST_MAZES) {
+            Maze maze = setupForMaze(name);
+            DistanceField field = new DistanceField(maze);
+            SolveResult result = field.solve();
+            assertEquals(shortestRouteLength(maze), result.getRouteLength());
+            assertIsRoute(maze, result.getRouteIndices());
+            assertEquals(0, field.distanceFrom(maze.getExitIndex()));
+            assertNull(field.directionFrom(maze.getExitIndex()));
+
+            // every reachable cell is one step further than the next cell on its
+            // route, and no neighbour is more than one step closer
+            int reachable = 0;
+            for (int index = 0; index < maze.getWidth() * maze.getHeight(); index++) {
+                if (field.isReachable(index) == false) continue;
+                reachable++;
+                int distance = field.distanceFrom(index);
+                for (Maze.Direction direction : Maze.Direction.values()) {
+                    int next = maze.neighbor(index, direction);
+                    if (next != -1 && field.isReachable(next)) {
+                        assertTrue(field.distanceFrom(next) >= distance - 1);
+                    }
+                }
+                if (index != maze.getExitIndex()) {
+                    int next = maze.neighbor(index, field.directionFrom(index));
+                    assertEquals(distance - 1, field.distanceFrom(next));
+                    assertEquals(distance + 1, field.routeFrom(index).getRouteLength());
+                }
+            }
+            assertEquals(reachable, field.getReachedCount());
+        }
+
+        Maze maze = setupForMaze("maze2.txt");
+        DistanceField field = new DistanceField(maze);
+        assertThrows(IllegalArgumentException.class, () -> {
+            field.routeFrom(maze.indexAt(0, 0));
+        });
+        assertEquals(-1, field.distanceFrom(maze.indexAt(0, 0)));
+    }
+
+    @Test
+    public void ensureDistanceFieldSavesAndMapsBack() throws IOException {
+        Maze maze = setupForMaze("maze2.txt");
+        DistanceField field = new DistanceField(maze);
+        File file = saveToTempFile(field::save, ".field");
+
+        DistanceField mapped = DistanceField.load(file.getPath(), maze);
+        assertEquals(field.getReachedCount(), mapped.getReachedCount());
+        for (int index = 0; index < maze.getWidth() * maze.getHeight(); index++) {
+            assertEquals(field.distanceFrom(index), mapped.distanceFrom(index));
+        }
+        assertArrayEquals(field.solve().getRouteIndices(), mapped.solve().getRouteIndices());
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            DistanceField.load(file.getPath(), setupForMaze("maze1.txt"));
+        });
+        File notAField = File.createTempFile("field", ".txt");
+        notAField.deleteOnExit();
+        assertThrows(InvalidMazeException.class, () -> {
+            DistanceField.load(notAField.getPath(), maze);
+        });
+
+        // the entrance and the next cell on its route are made to point at each other;
+        // cells hold 1 plus the direction, counted clockwise from north
+        int entrance = maze.getEntranceIndex();
+        int next = maze.neighbor(entrance, field.directionFrom(entrance));
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(32 + entrance);
+            int step = raw.read() - 1;
+            raw.seek(32 + next);
+            raw.write(1 + (step + 2) % 4);
+        }
+        DistanceField cyclic = DistanceField.load(file.getPath(), maze);
+        assertThrows(InvalidMazeException.class, () -> {
+            cyclic.distanceFrom(entrance);
+        });
+        assertThrows(InvalidMazeException.class, () -> {
+            cyclic.solve();
+        });
+
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(32 + next);
+            raw.write(9);
+        }
+        DistanceField corrupt = DistanceField.load(file.getPath(), maze);
+        assertThrows(InvalidMazeException.class, () -> {
+            corrupt.solve();
+        });
+        assertThrows(InvalidMazeException.class, () -> {
+            corrupt.directionFrom(next);
+        });
+    }
+
+    @Test
+    public void ensureSolvableMazesAreFound() throws IOException {
+        assertTrue(setupForMaze("maze1.txt").isSolvable());
+        assertTrue(setupForMaze("maze2.txt").isSolvable());
+
+        // the two arms only join up in the last row
+        Maze winding = Maze.fromTxt(ByteBuffer.wrap((
+            "e#.#x\n" +
+            ".#.#.\n" +
+            ".#.#.\n" +
+            ".....").getBytes()));
+        assertTrue(winding.isSolvable());
+
+        Maze walledIn = Maze.fromTxt(ByteBuffer.wrap((
+            "e..#.\n" +
+            ".#.##\n" +
+            "...#x").getBytes()));
+        assertFalse(walledIn.isSolvable());
+        assertFalse(walledIn.isSolvable());
+        assertThrows(NoRouteFoundException.class, () -> {
+            new RouteFinder(walledIn).solve();
+        });
+    }
+
+    @Test
+    public void ensureMazeCellsCanBeOpenedAndClosed() {
+        Maze maze = setupForMaze("maze2.txt");
+        int wall = maze.indexAt(0, 0);
+        assertFalse(maze.isNavigable(wall));
+        assertTrue(maze.isSolvable());
+
+        maze.setNavigable(wall, true);
+        assertEquals(Tile.Type.CORRIDOR, maze.typeAt(wall));
+        assertEquals(Tile.Type.CORRIDOR, maze.tileAt(wall).getType());
+        maze.setNavigable(wall, false);
+        assertEquals(Tile.Type.WALL, maze.tileAt(wall).getType());
+
+        // closing every neighbour of the exit cuts it off
+        for (Maze.Direction direction : Maze.Direction.values()) {
+            int next = maze.neighbor(maze.getExitIndex(), direction);
+            if (next != -1) maze.setNavigable(next, false);
+        }
+        assertFalse(maze.isSolvable());
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            maze.setNavigable(maze.getEntranceIndex(), false);
+        });
+        assertThrows(IndexOutOfBoundsException.class, () -> {
+            maze.setNavigable(maze.getWidth() * maze.getHeight(), true);
+        });
+    }
+
+    @Test
+    public void ensureIncrementalPlannerRepairsRoutesAfterChanges() {
+        int size = 40;
+        Random random = new Random(25);
+        Maze maze = randomMaze(size, random, 3);
+        IncrementalPlanner planner = new IncrementalPlanner(maze);
+
+        for (int change = 0; change < 2000; change++) {
+            int expected = shortestRouteLength(maze);
+            if (expected == -1) {
+                assertThrows(NoRouteFoundException.class, () -> {
+                    planner.solve();
+                });
+            } else {
+                SolveResult result = planner.solve();
+                assertEquals(expected, result.getRouteLength());
+                assertIsRoute(maze, result.getRouteIndices());
+            }
+
+            int index = random.nextInt(size * size);
+            if (index != maze.getEntranceIndex() && index != maze.getExitIndex()) {
+                maze.setNavigable(index, maze.isNavigable(index) == false);
+                planner.cellChanged(index);
+            }
+        }
+    }
+
+    @Test
+    public void ensureIncrementalPlannerBarelyExpandsAfterOffRouteChanges() {
+        // the route runs straight along the top row, above an open field
+        int size = 30;
+        Maze maze = buildMaze(size, 0, (row, column) -> false);
+        IncrementalPlanner planner = new IncrementalPlanner(maze);
+        SolveResult first = planner.solve();
+        assertTrue(first.getSteps() >= size - 1);
+
+        for (int row = 1; row < size; row += 4) {
+            for (int column = 0; column < size; column += 3) {
+                int index = row * size + column;
+                maze.setNavigable(index, false);
+                planner.cellChanged(index);
+                SolveResult result = planner.solve();
+                assertTrue(result.getSteps() + " expansions", result.getSteps() <= 2);
+                assertArrayEquals(first.getRouteIndices(), result.getRouteIndices());
+
+                maze.setNavigable(index, true);
+                planner.cellChanged(index);
+                assertTrue(planner.solve().getSteps() <= 2);
+            }
+        }
+    }
+
+    /**  Solver found through the ServiceLoader in ensureSolversAreFoundOnTheClassPath  */
+    public static class ExtraSolver implements Solver {
+        public String getName() { return "extra"; }
+        public Set<Solver.Capability> getCapabilities() { return EnumSet.of(Solver.Capability.SHORTEST_ROUTE); }
+        public SolveResult solve(Maze maze) { return new BreadthFirstRouteFinder(maze).solve(); }
+    }
+
+    @Test
+    public void ensureEveryRegisteredSolverSolves() {
+        Maze maze = setupForMaze("maze2.txt");
+        List<Solver> solvers = new SolverRegistry().getSolvers();
+        assertTrue(solvers.size() >= 7);
+        for (Solver solver : solvers) {
+            SolveResult result = solver.solve(maze);
+            assertTrue(solver.getName(), result.isFinished());
+            assertIsRoute(maze, result.getRouteIndices());
+            if (solver.getCapabilities().contains(Solver.Capability.SHORTEST_ROUTE)) {
+                assertEquals(solver.getName(), shortestRouteLength(maze), result.getRouteLength());
+            }
+        }
+    }
+
+    @Test
+    public void ensureSolversArePickedByNameOrCapability() {
+        SolverRegistry registry = new SolverRegistry();
+        assertEquals("bfs", registry.get("bfs").getName());
+        assertEquals("dfs", registry.get("dfs").getName());
+        assertThrows(IllegalArgumentException.class, () -> {
+            registry.get("no-such-solver");
+        });
+
+        assertTrue(registry.find(Solver.Capability.SHORTEST_ROUTE).getCapabilities().contains(Solver.Capability.SHORTEST_ROUTE));
+        assertEquals("bfs", registry.find(Solver.Capability.SHORTEST_ROUTE, Solver.Capability.LOW_MEMORY).getName());
+        assertEquals("parallel-bfs", registry.find(Solver.Capability.PARALLEL, Solver.Capability.LOW_MEMORY).getName());
+        assertEquals(registry.getSolvers().get(0), registry.find());
+    }
+
+    @Test
+    public void ensureSolversAreFoundOnTheClassPath() throws IOException {
+        File directory = Files.createTempDirectory("solvers").toFile();
+        File services = new File(directory, "META-INF/services");
+        services.mkdirs();
+        File listing = new File(services, Solver.class.getName());
+        Files.write(listing.toPath(), (ExtraSolver.class.getName() + "\n").getBytes());
+        listing.deleteOnExit();
+        services.deleteOnExit();
+        services.getParentFile().deleteOnExit();
+        directory.deleteOnExit();
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{directory.toURI().toURL()}, getClass().getClassLoader());
+        try {
+            SolverRegistry registry = new SolverRegistry(loader);
+            Solver extra = registry.get("extra");
+            Maze maze = setupForMaze("maze1.txt");
+            assertEquals(shortestRouteLength(maze), extra.solve(maze).getRouteLength());
+            assertEquals(extra, registry.getSolvers().get(registry.getSolvers().size() - 1));
+        } finally {
+            loader.close();
+        }
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SolverRegistry().get("extra");
+        });
+    }
+
+}